@@ -24,8 +24,7 @@ public class Runner {
             }
 
             if (line.equals("stop")) {
-                server.storeData();
-                server.stopServer();
+                server.shutdownGracefully();
                 server.join();
                 break;
             }
@@ -1,23 +1,28 @@
 package bg.sofia.uni.fmi.mjt.bookmarks.manager;
 
-import bg.sofia.uni.fmi.mjt.bookmarks.manager.command.Command;
-import bg.sofia.uni.fmi.mjt.bookmarks.manager.command.CommandParser;
 import bg.sofia.uni.fmi.mjt.bookmarks.manager.logger.Level;
+import bg.sofia.uni.fmi.mjt.bookmarks.manager.network.BufferPool;
+import bg.sofia.uni.fmi.mjt.bookmarks.manager.network.ConnectionLimiter;
+import bg.sofia.uni.fmi.mjt.bookmarks.manager.network.InFlightCommands;
+import bg.sofia.uni.fmi.mjt.bookmarks.manager.network.Reactor;
+import bg.sofia.uni.fmi.mjt.bookmarks.manager.network.ResponseFrame;
 import bg.sofia.uni.fmi.mjt.bookmarks.manager.service.Dispatcher;
 
 import java.io.IOException;
 import java.net.InetSocketAddress;
-import java.nio.ByteBuffer;
 import java.nio.channels.SelectionKey;
 import java.nio.channels.Selector;
 import java.nio.channels.ServerSocketChannel;
 import java.nio.channels.SocketChannel;
-import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Iterator;
-import java.util.Set;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 public class Server extends Thread {
@@ -25,9 +30,17 @@ public class Server extends Thread {
     private static final String BOOKMARKS_STORAGE_PATH = "src/main/resources/bookmarks.json";
 
     private final ServerConfig config;
-    private Selector runningSelector;
-
-    private static AtomicBoolean isRunning = new AtomicBoolean(false);
+    private final String bookmarksPath;
+    private final String usersPath;
+    private final AtomicBoolean isRunning = new AtomicBoolean(false);
+    private final AtomicBoolean isShuttingDown = new AtomicBoolean(false);
+    private final InFlightCommands inFlight = new InFlightCommands();
+
+    private volatile List<Reactor> reactors = List.of();
+    private volatile Selector acceptSelector;
+    private volatile int localPort = -1;
+    private volatile long shutdownDeadlineNanos;
+    private ExecutorService workers;
 
     public Server() {
         this(ServerConfig.newDefaultServerConfig());
@@ -38,132 +51,279 @@ public class Server extends Thread {
     }
 
     public Server(ServerConfig config) {
+        this(config, BOOKMARKS_STORAGE_PATH, USER_STORAGE_PATH);
+    }
+
+    /**
+     * @param config        the server configuration.
+     * @param bookmarksPath the file the bookmarks are loaded from and stored in.
+     * @param usersPath     the file the users are loaded from and stored in.
+     */
+    public Server(ServerConfig config, String bookmarksPath, String usersPath) {
         this.config = config;
+        this.bookmarksPath = bookmarksPath;
+        this.usersPath = usersPath;
     }
 
     @Override
     public void run() {
         System.out.println("Starting the server...");
 
-        ByteBuffer buffer = config.isBufferDirect() ?
-                ByteBuffer.allocateDirect(config.bufferSize()) :
-                ByteBuffer.allocate(config.bufferSize());
+        workers = config.workerThreads() > 0 ?
+                Executors.newFixedThreadPool(config.workerThreads(), Server::newWorker) :
+                null;
+
+        BufferPool pool = new BufferPool(config.bufferSize(), config.bufferPoolSize(), config.isBufferDirect());
+        ConnectionLimiter limiter = new ConnectionLimiter(config.maxConnections());
 
         isRunning.set(true);
+        Dispatcher.linkChecker().start(config.linkCheckMaxConcurrent(), config.linkCheckMaxPerHost(),
+                Duration.ofMillis(config.linkCheckTimeoutMillis()));
+        Dispatcher.linkHealthMonitor().start(config.linkCheckIntervalMillis(), config.linkCheckBatchSize());
+
+        List<Thread> reactorThreads = new ArrayList<>();
 
         try (ServerSocketChannel serverSocketChannel = ServerSocketChannel.open()) {
             serverSocketChannel.bind(new InetSocketAddress(config.hostname(), config.port()));
+            localPort = serverSocketChannel.socket().getLocalPort();
             serverSocketChannel.configureBlocking(config.isBlocking());
 
-            System.out.println("Server started. Listening for connections...");
+            if (config.reactorThreads() <= 0) {
+                Reactor reactor = new Reactor("reactor-0", config, workers, pool, limiter, inFlight);
+                reactor.acceptFrom(serverSocketChannel);
+                startReactors(List.of(reactor));
 
-            Selector selector = Selector.open();
-            this.runningSelector = selector;
+                System.out.println("Server started. Listening for connections...");
 
-            serverSocketChannel.register(selector, SelectionKey.OP_ACCEPT);
+                reactor.run();
+                return;
+            }
 
-            while (isRunning.get()) {
-                int readyChannels = selector.select();
+            List<Reactor> created = new ArrayList<>();
+            for (int i = 0; i < config.reactorThreads(); i++) {
+                Reactor reactor = new Reactor("reactor-" + i, config, workers, pool, limiter, inFlight);
+                created.add(reactor);
 
-                if (readyChannels <= 0 || !isRunning.get()) {
-                    continue;
-                }
+                Thread thread = new Thread(reactor, "reactor-" + i);
+                reactorThreads.add(thread);
+            }
 
-                Set<SelectionKey> selectedKeys = selector.selectedKeys();
-                Iterator<SelectionKey> keyIt = selectedKeys.iterator();
+            startReactors(created);
+            reactorThreads.forEach(Thread::start);
 
-                while (keyIt.hasNext()) {
-                    SelectionKey key = keyIt.next();
+            System.out.println("Server started. Listening for connections...");
 
-                    if (key.isAcceptable()) {
-                        ServerSocketChannel sc = (ServerSocketChannel) key.channel();
+            acceptLoop(serverSocketChannel, pool, limiter);
 
-                        SocketChannel accept = sc.accept();
-                        accept.configureBlocking(config.isBlocking());
-                        accept.register(selector, SelectionKey.OP_READ);
+        } catch (IOException e) {
+            String logMsg = Server.class + " " + e.getMessage();
+            Dispatcher.logger().log(Level.ERROR, LocalDateTime.now(), logMsg);
+            Dispatcher.logger().log(Level.ERROR, LocalDateTime.now(), Arrays.toString(e.getStackTrace()));
 
-                        String address = accept.socket().getInetAddress().toString();
-                        int port = accept.socket().getPort();
+            e.printStackTrace();
+        } finally {
+            if (!isShuttingDown.get()) {
+                reactors.forEach(Reactor::stop);
+            }
 
-                        String connectMsg = String.format(
-                                "Client with address %s:%d has opened a connection.",
-                                address, port);
+            joinAll(reactorThreads);
+            boolean isCompleted = stopWorkers();
+            Dispatcher.linkHealthMonitor().stop();
+            Dispatcher.linkChecker().stop();
+
+            if (isShuttingDown.get()) {
+                if (!isCompleted) {
+                    String logMsg = Server.class + " " + inFlight.count() + " commands did not complete " +
+                                    "within the shutdown timeout. The stored data may miss their changes.";
+                    Dispatcher.logger().log(Level.ERROR, LocalDateTime.now(), logMsg);
+                    System.err.println(logMsg);
+                }
 
-                        System.out.println(connectMsg);
+                System.out.println("Storing the data...");
+                store();
+                System.out.println("Server stopped.");
+            }
+        }
+    }
 
-                    } else if (key.isReadable()) {
-                        SocketChannel sc = (SocketChannel) key.channel();
+    /**
+     * In a graceful shutdown the reactors have already drained, so the workers and the commands
+     * still waiting on I/O are given the rest of the shutdown timeout to finish.
+     * Workers still busy after it are interrupted and the commands they have not started are dropped.
+     *
+     * @return true if every command handed to the workers has completed.
+     */
+    private boolean stopWorkers() {
+        if (workers == null) {
+            return true;
+        }
 
-                        buffer.clear();
-                        int r = sc.read(buffer);
+        workers.shutdown();
 
-                        if (r < 0) {
-                            String address = sc.socket().getInetAddress().toString();
-                            int port = sc.socket().getPort();
+        try {
+            if (workers.awaitTermination(remainingShutdownMillis(), TimeUnit.MILLISECONDS)
+                && inFlight.awaitCompletion(remainingShutdownMillis())) {
+                return true;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
 
-                            String disconnectMsg = String.format(
-                                    "Client with address %s:%d has closed the connection.",
-                                    address, port);
+        // every task of the workers is a command, so each one which never ran is no longer in flight
+        workers.shutdownNow().forEach(task -> inFlight.end());
 
-                            System.out.println(disconnectMsg);
-                            sc.close();
-                            continue;
-                        }
+        return inFlight.count() == 0;
+    }
 
-                        String line = new String(
-                                buffer.array(),
-                                0,
-                                buffer.position(),
-                                StandardCharsets.UTF_8);
+    private long remainingShutdownMillis() {
+        if (!isShuttingDown.get()) {
+            return 0;
+        }
 
-                        Command command = CommandParser.of(line, sc);
-                        String response = command.execute();
+        return Math.max(TimeUnit.NANOSECONDS.toMillis(shutdownDeadlineNanos - System.nanoTime()), 0);
+    }
 
-                        buffer.clear();
-                        buffer.put(response.getBytes(StandardCharsets.UTF_8));
-                        buffer.flip();
+    /**
+     * Accepts the new connections and hands each of them to the least loaded reactor.
+     * Connections beyond the configured maximum are rejected.
+     */
+    private void acceptLoop(ServerSocketChannel serverSocketChannel, BufferPool pool, ConnectionLimiter limiter)
+            throws IOException {
+        try (Selector selector = Selector.open()) {
+            this.acceptSelector = selector;
 
-                        sc.write(buffer);
-                    }
+            serverSocketChannel.register(selector, SelectionKey.OP_ACCEPT);
 
-                    keyIt.remove();
+            while (isRunning.get()) {
+                selector.select();
+                selector.selectedKeys().clear();
+
+                SocketChannel accept;
+                while (isRunning.get() && (accept = serverSocketChannel.accept()) != null) {
+                    if (limiter.tryAcquire()) {
+                        leastLoaded().register(accept);
+                    } else {
+                        limiter.reject(accept, pool);
+                    }
                 }
+            }
+        }
+    }
 
+    /**
+     * Workers encode the responses of the commands they complete, so each one releases
+     * its deflater before it exits.
+     */
+    private static Thread newWorker(Runnable runnable) {
+        return new Thread(() -> {
+            try {
+                runnable.run();
+            } finally {
+                ResponseFrame.releaseDeflater();
             }
+        }, "command-worker");
+    }
 
-        } catch (IOException e) {
-            String logMsg = Server.class + " " + e.getMessage();
-            Dispatcher.logger().log(Level.ERROR, LocalDateTime.now(), logMsg);
-            Dispatcher.logger().log(Level.ERROR, LocalDateTime.now(), Arrays.toString(e.getStackTrace()));
+    private Reactor leastLoaded() {
+        Reactor target = reactors.get(0);
 
-            e.printStackTrace();
+        for (Reactor reactor : reactors) {
+            if (reactor.connectionCount() < target.connectionCount()) {
+                target = reactor;
+            }
+        }
+
+        return target;
+    }
+
+    private void startReactors(List<Reactor> created) {
+        this.reactors = created;
+
+        // the server may have been stopped before the reactors were published
+        if (!isRunning.get()) {
+            created.forEach(Reactor::stop);
+        }
+    }
+
+    private void joinAll(List<Thread> threads) {
+        for (Thread thread : threads) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
         }
     }
 
+    /**
+     * @return the port the server listens on, which differs from the configured one if that is 0,
+     * or -1 if the server is not listening yet.
+     */
+    public int localPort() {
+        return localPort;
+    }
+
     public void stopServer() {
-        if (!isRunning.get() || runningSelector == null) {
+        if (!isRunning.get()) {
             System.err.println("Server is currently not running.");
         } else {
             System.out.println("Stopping the server...");
             isRunning.set(false);
-            runningSelector.wakeup();
+
+            Selector selector = acceptSelector;
+            if (selector != null) {
+                selector.wakeup();
+            }
+
+            reactors.forEach(Reactor::stop);
         }
     }
 
+    /**
+     * Stops the server without losing the work in progress. The server stops accepting connections
+     * and reading commands, answers the commands already received, and closes every connection
+     * once its responses are written. Connections still busy after the configured shutdown timeout
+     * are closed anyway. The data is stored once no command is running or, logging the commands left,
+     * once the shutdown timeout has passed.
+     */
+    public void shutdownGracefully() {
+        if (!isRunning.get()) {
+            System.err.println("Server is currently not running.");
+            return;
+        }
+
+        System.out.println("Shutting down the server...");
+        shutdownDeadlineNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(config.shutdownTimeoutMillis());
+        isShuttingDown.set(true);
+        isRunning.set(false);
+
+        Selector selector = acceptSelector;
+        if (selector != null) {
+            selector.wakeup();
+        }
+
+        reactors.forEach(reactor -> reactor.drain(config.shutdownTimeoutMillis()));
+    }
+
     public void storeData() {
         if (isRunning.get()) {
             System.out.println("Storing the data...");
-            Dispatcher.bookmarkStorage().store(BOOKMARKS_STORAGE_PATH);
-            Dispatcher.userStorage().store(USER_STORAGE_PATH);
+            store();
         } else {
             System.err.println("Server is not running. Cannot store data!");
         }
     }
 
+    private void store() {
+        Dispatcher.bookmarkStorage().store(bookmarksPath);
+        Dispatcher.userStorage().store(usersPath);
+    }
+
     public void loadData() {
         if (!isRunning.get()) {
-            Dispatcher.bookmarkStorage().load(BOOKMARKS_STORAGE_PATH);
-            Dispatcher.userStorage().load(USER_STORAGE_PATH);
+            Dispatcher.bookmarkStorage().load(bookmarksPath);
+            Dispatcher.userStorage().load(usersPath);
         } else {
             System.err.println("Server is running. Cannot load data!");
         }
@@ -15,12 +15,44 @@ public class ServerConfig {
     private static final String DEFAULT_HOSTNAME = "localhost";
     private static final int DEFAULT_PORT = 62535;
     private static final int DEFAULT_BUFFER_SIZE = 8192;
+    private static final int DEFAULT_WORKER_THREADS = 0;
+    private static final int DEFAULT_REACTOR_THREADS = 0;
+    private static final int DEFAULT_BUFFER_POOL_SIZE = 1024;
+    private static final long DEFAULT_IDLE_TIMEOUT_MILLIS = 5 * 60 * 1000;
+    private static final long DEFAULT_HALF_OPEN_TIMEOUT_MILLIS = 30 * 1000;
+    private static final long DEFAULT_SESSION_TIMEOUT_MILLIS = 30 * 60 * 1000;
+    private static final int DEFAULT_MAX_CONNECTIONS = 1024;
+    private static final int DEFAULT_MAX_IN_FLIGHT_COMMANDS = 64;
+    private static final int DEFAULT_MAX_OUTBOUND_BYTES = 1024 * 1024;
+    private static final long DEFAULT_SHUTDOWN_TIMEOUT_MILLIS = 10 * 1000;
+    private static final int DEFAULT_COMPRESSION_THRESHOLD = 1024;
+    private static final long DEFAULT_LINK_CHECK_INTERVAL_MILLIS = 60 * 1000;
+    private static final int DEFAULT_LINK_CHECK_BATCH_SIZE = 50;
+    private static final int DEFAULT_LINK_CHECK_MAX_CONCURRENT = 4;
+    private static final int DEFAULT_LINK_CHECK_MAX_PER_HOST = 1;
+    private static final long DEFAULT_LINK_CHECK_TIMEOUT_MILLIS = 10 * 1000;
 
     private final String hostname;
     private final int port;
     private final int bufferSize;
     private final boolean isBufferDirect;
     private final boolean isBlocking;
+    private final int workerThreads;
+    private final int reactorThreads;
+    private final int bufferPoolSize;
+    private final long idleTimeoutMillis;
+    private final long halfOpenTimeoutMillis;
+    private final long sessionTimeoutMillis;
+    private final int maxConnections;
+    private final int maxInFlightCommands;
+    private final int maxOutboundBytes;
+    private final long shutdownTimeoutMillis;
+    private final int compressionThreshold;
+    private final long linkCheckIntervalMillis;
+    private final int linkCheckBatchSize;
+    private final int linkCheckMaxConcurrent;
+    private final int linkCheckMaxPerHost;
+    private final long linkCheckTimeoutMillis;
 
     /**
      * Constructs a server configuration with default settings.
@@ -31,6 +63,22 @@ public class ServerConfig {
         this.bufferSize = DEFAULT_BUFFER_SIZE;
         this.isBufferDirect = false;
         this.isBlocking = false;
+        this.workerThreads = DEFAULT_WORKER_THREADS;
+        this.reactorThreads = DEFAULT_REACTOR_THREADS;
+        this.bufferPoolSize = DEFAULT_BUFFER_POOL_SIZE;
+        this.idleTimeoutMillis = DEFAULT_IDLE_TIMEOUT_MILLIS;
+        this.halfOpenTimeoutMillis = DEFAULT_HALF_OPEN_TIMEOUT_MILLIS;
+        this.sessionTimeoutMillis = DEFAULT_SESSION_TIMEOUT_MILLIS;
+        this.maxConnections = DEFAULT_MAX_CONNECTIONS;
+        this.maxInFlightCommands = DEFAULT_MAX_IN_FLIGHT_COMMANDS;
+        this.maxOutboundBytes = DEFAULT_MAX_OUTBOUND_BYTES;
+        this.shutdownTimeoutMillis = DEFAULT_SHUTDOWN_TIMEOUT_MILLIS;
+        this.compressionThreshold = DEFAULT_COMPRESSION_THRESHOLD;
+        this.linkCheckIntervalMillis = DEFAULT_LINK_CHECK_INTERVAL_MILLIS;
+        this.linkCheckBatchSize = DEFAULT_LINK_CHECK_BATCH_SIZE;
+        this.linkCheckMaxConcurrent = DEFAULT_LINK_CHECK_MAX_CONCURRENT;
+        this.linkCheckMaxPerHost = DEFAULT_LINK_CHECK_MAX_PER_HOST;
+        this.linkCheckTimeoutMillis = DEFAULT_LINK_CHECK_TIMEOUT_MILLIS;
     }
 
     /**
@@ -96,18 +144,189 @@ public class ServerConfig {
         return port;
     }
 
+    /**
+     * The size of a single pooled network buffer.
+     * Requests are read and responses are written in chunks of this size.
+     *
+     * @return the buffer chunk size in bytes.
+     */
     public int bufferSize() {
         return bufferSize;
     }
 
+    /**
+     * @return true if the pooled network buffers are allocated outside the Java heap.
+     */
     public boolean isBufferDirect() {
         return isBufferDirect;
     }
 
+    /**
+     * The maximum number of idle buffers kept in the pool for reuse.
+     *
+     * @return the buffer pool capacity.
+     */
+    public int bufferPoolSize() {
+        return bufferPoolSize;
+    }
+
     public boolean isBlocking() {
         return isBlocking;
     }
 
+    /**
+     * The number of worker threads executing commands.
+     * A value of 0 executes the commands inline on the selector thread.
+     *
+     * @return the size of the command worker pool.
+     */
+    public int workerThreads() {
+        return workerThreads;
+    }
+
+    /**
+     * The number of selector threads serving the client connections.
+     * A value of 0 serves the connections on the thread accepting them.
+     * Otherwise, a single acceptor hands every new connection to the least loaded selector thread.
+     *
+     * @return the number of selector threads.
+     */
+    public int reactorThreads() {
+        return reactorThreads;
+    }
+
+    /**
+     * How long a connection which is not logged in may stay silent before it is closed.
+     * A value of 0 never closes such connections.
+     *
+     * @return the idle timeout in milliseconds.
+     */
+    public long idleTimeoutMillis() {
+        return idleTimeoutMillis;
+    }
+
+    /**
+     * How long a connection may stay open without sending a single complete command.
+     * A value of 0 never closes such connections.
+     *
+     * @return the half-open connection timeout in milliseconds.
+     */
+    public long halfOpenTimeoutMillis() {
+        return halfOpenTimeoutMillis;
+    }
+
+    /**
+     * How long a logged-in connection may stay silent before it is closed and its user logged out.
+     * A value of 0 never closes such connections.
+     *
+     * @return the session timeout in milliseconds.
+     */
+    public long sessionTimeoutMillis() {
+        return sessionTimeoutMillis;
+    }
+
+    /**
+     * The maximum number of connections open at the same time.
+     * Connections beyond it are told that the server is at capacity and closed.
+     * A value of 0 disables the limit.
+     *
+     * @return the maximum number of open connections.
+     */
+    public int maxConnections() {
+        return maxConnections;
+    }
+
+    /**
+     * The maximum number of commands of a single connection which are received but not answered yet.
+     * The connection is not read while it has that many commands in flight.
+     * A value of 0 disables the limit.
+     *
+     * @return the maximum number of in-flight commands per connection.
+     */
+    public int maxInFlightCommands() {
+        return maxInFlightCommands;
+    }
+
+    /**
+     * The number of queued response bytes above which a connection is neither read
+     * nor has its next command executed until the client has received some of them.
+     * A value of 0 disables the limit.
+     *
+     * @return the maximum number of queued outbound bytes per connection.
+     */
+    public int maxOutboundBytes() {
+        return maxOutboundBytes;
+    }
+
+    /**
+     * How long a graceful shutdown waits for the commands already received to be answered
+     * before the remaining connections are closed.
+     *
+     * @return the shutdown timeout in milliseconds.
+     */
+    public long shutdownTimeoutMillis() {
+        return shutdownTimeoutMillis;
+    }
+
+    /**
+     * The response length in characters from which responses are compressed
+     * for the clients which have asked for compression.
+     * A value of 0 disables the compression.
+     *
+     * @return the compression threshold.
+     */
+    public int compressionThreshold() {
+        return compressionThreshold;
+    }
+
+    /**
+     * How long the background link health check waits between two batches of bookmarks.
+     * A value of 0 disables the background check.
+     *
+     * @return the link check interval in milliseconds.
+     */
+    public long linkCheckIntervalMillis() {
+        return linkCheckIntervalMillis;
+    }
+
+    /**
+     * The number of bookmarks the background link health check validates in a single batch.
+     *
+     * @return the link check batch size.
+     */
+    public int linkCheckBatchSize() {
+        return linkCheckBatchSize;
+    }
+
+    /**
+     * The maximum number of link checks in flight across the whole server,
+     * which is also the number of threads the checks run on.
+     *
+     * @return the maximum number of concurrent link checks.
+     */
+    public int linkCheckMaxConcurrent() {
+        return linkCheckMaxConcurrent;
+    }
+
+    /**
+     * The maximum number of links of a single host checked at the same time by a single batch,
+     * so no site is flooded.
+     *
+     * @return the maximum number of concurrent link checks per host.
+     */
+    public int linkCheckMaxPerHost() {
+        return linkCheckMaxPerHost;
+    }
+
+    /**
+     * How long a single link check request may take before the link is reported as failed.
+     *
+     * @return the link check request timeout in milliseconds.
+     */
+    public long linkCheckTimeoutMillis() {
+        return linkCheckTimeoutMillis;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -117,11 +336,32 @@ public class ServerConfig {
                bufferSize == that.bufferSize &&
                isBufferDirect() == that.isBufferDirect() &&
                isBlocking() == that.isBlocking() &&
+               workerThreads == that.workerThreads &&
+               reactorThreads == that.reactorThreads &&
+               bufferPoolSize == that.bufferPoolSize &&
+               idleTimeoutMillis == that.idleTimeoutMillis &&
+               halfOpenTimeoutMillis == that.halfOpenTimeoutMillis &&
+               sessionTimeoutMillis == that.sessionTimeoutMillis &&
+               maxConnections == that.maxConnections &&
+               maxInFlightCommands == that.maxInFlightCommands &&
+               maxOutboundBytes == that.maxOutboundBytes &&
+               shutdownTimeoutMillis == that.shutdownTimeoutMillis &&
+               compressionThreshold == that.compressionThreshold &&
+               linkCheckIntervalMillis == that.linkCheckIntervalMillis &&
+               linkCheckBatchSize == that.linkCheckBatchSize &&
+               linkCheckMaxConcurrent == that.linkCheckMaxConcurrent &&
+               linkCheckMaxPerHost == that.linkCheckMaxPerHost &&
+               linkCheckTimeoutMillis == that.linkCheckTimeoutMillis &&
                Objects.equals(hostname, that.hostname);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(hostname, port, bufferSize, isBufferDirect(), isBlocking());
+        return Objects.hash(hostname, port, bufferSize, isBufferDirect(), isBlocking(),
+                workerThreads, reactorThreads, bufferPoolSize,
+                idleTimeoutMillis, halfOpenTimeoutMillis, sessionTimeoutMillis,
+                maxConnections, maxInFlightCommands, maxOutboundBytes, shutdownTimeoutMillis,
+                compressionThreshold, linkCheckIntervalMillis, linkCheckBatchSize,
+                linkCheckMaxConcurrent, linkCheckMaxPerHost, linkCheckTimeoutMillis);
     }
 }
@@ -1,13 +1,25 @@
 package bg.sofia.uni.fmi.mjt.bookmarks.manager.client;
 
+import bg.sofia.uni.fmi.mjt.bookmarks.manager.network.ResponseFrame;
+import bg.sofia.uni.fmi.mjt.bookmarks.manager.utils.Pair;
 import bg.sofia.uni.fmi.mjt.bookmarks.manager.utils.cli.CliPrompts;
 
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.InetSocketAddress;
 import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
 import java.nio.channels.SocketChannel;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
 import java.util.Scanner;
+import java.util.zip.InflaterInputStream;
 
 import static bg.sofia.uni.fmi.mjt.bookmarks.manager.utils.cli.CliPrompts.TOGGLE_COMMAND;
 
@@ -15,15 +27,25 @@ public class Client {
     private static final int SERVER_PORT = 62535;
     private static final String SERVER_HOSTNAME = "localhost";
     private static final int BUFFER_SIZE = 8192;
+    private static final byte LINE_SEPARATOR = '\n';
 
     private static final ByteBuffer BUFFER = ByteBuffer.allocate(BUFFER_SIZE);
 
+    /**
+     * Starts an interactive session. If a file is passed as the first argument,
+     * its lines are sent as commands without waiting for the responses in between.
+     */
     public static void main(String[] args) {
+        if (args.length > 0) {
+            runScript(Path.of(args[0]));
+            return;
+        }
 
         try (SocketChannel socketChannel = SocketChannel.open();
              Scanner in = new Scanner(System.in)) {
 
             socketChannel.connect(new InetSocketAddress(SERVER_HOSTNAME, SERVER_PORT));
+            requestCompression(socketChannel);
 
             CliPrompts.initPrompt();
 
@@ -41,25 +63,98 @@ public class Client {
 
                 BUFFER.clear();
                 BUFFER.put(userInput.getBytes(StandardCharsets.UTF_8));
+                BUFFER.put(LINE_SEPARATOR);
                 BUFFER.flip();
 
                 socketChannel.write(BUFFER);
 
-                BUFFER.clear();
-                socketChannel.read(BUFFER);
+                System.out.println(readResponse(socketChannel).second());
+            }
+
+        } catch (IOException e) {
+            CliPrompts.communicationErrorMessage();
+        }
+    }
+
+    private static void runScript(Path script) {
+        try (SocketChannel socketChannel = SocketChannel.open()) {
+            List<String> commands = Files.readAllLines(script, StandardCharsets.UTF_8);
+
+            socketChannel.connect(new InetSocketAddress(SERVER_HOSTNAME, SERVER_PORT));
+            requestCompression(socketChannel);
+
+            Thread sender = new Thread(() -> sendAll(socketChannel, commands), "client-sender");
+            sender.start();
 
-                String response =
-                        new String(
-                                BUFFER.array(),
-                                0,
-                                BUFFER.position(),
-                                StandardCharsets.UTF_8);
+            for (int expected = 0; expected < commands.size(); expected++) {
+                Pair<Integer, String> response = readResponse(socketChannel);
 
-                System.out.println(response);
+                if (response.first() != expected) {
+                    throw new IOException("Response " + response.first() + " received out of order.");
+                }
+
+                System.out.println(response.second());
             }
 
+            sender.join();
         } catch (IOException e) {
             CliPrompts.communicationErrorMessage();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         }
     }
+
+    private static void sendAll(SocketChannel socketChannel, List<String> commands) {
+        OutputStream out = new BufferedOutputStream(Channels.newOutputStream(socketChannel), BUFFER_SIZE);
+
+        try {
+            for (String command : commands) {
+                out.write(command.getBytes(StandardCharsets.UTF_8));
+                out.write(LINE_SEPARATOR);
+            }
+
+            out.flush();
+        } catch (IOException e) {
+            CliPrompts.communicationErrorMessage();
+        }
+    }
+
+    private static void requestCompression(SocketChannel socketChannel) throws IOException {
+        ByteBuffer capability = ByteBuffer.wrap(
+                (ResponseFrame.DEFLATE_CAPABILITY + (char) LINE_SEPARATOR).getBytes(StandardCharsets.UTF_8));
+
+        while (capability.hasRemaining()) {
+            socketChannel.write(capability);
+        }
+    }
+
+    private static Pair<Integer, String> readResponse(SocketChannel socketChannel) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(ResponseFrame.HEADER_SIZE);
+        readFully(socketChannel, header);
+
+        int sequence = header.getInt();
+        int length = header.getInt();
+        byte flags = header.get();
+
+        ByteBuffer payload = ByteBuffer.allocate(length);
+        readFully(socketChannel, payload);
+
+        if ((flags & ResponseFrame.FLAG_DEFLATE) != 0) {
+            try (InputStream inflater = new InflaterInputStream(new ByteArrayInputStream(payload.array()))) {
+                payload = ByteBuffer.wrap(inflater.readAllBytes());
+            }
+        }
+
+        return new Pair<>(sequence, StandardCharsets.UTF_8.decode(payload).toString());
+    }
+
+    private static void readFully(SocketChannel socketChannel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (socketChannel.read(buffer) < 0) {
+                throw new EOFException("The server has closed the connection.");
+            }
+        }
+
+        buffer.flip();
+    }
 }
@@ -1,6 +1,7 @@
 package bg.sofia.uni.fmi.mjt.bookmarks.manager.command;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 public abstract class Command {
     protected final CommandType type;
@@ -18,6 +19,16 @@ public abstract class Command {
      */
     public abstract String execute();
 
+    /**
+     * Executes a given command without blocking the calling thread on I/O.
+     * Commands which do not wait on I/O are executed synchronously.
+     *
+     * @return The response in human-readable format ready for the user, completed once it is ready.
+     */
+    public CompletableFuture<String> executeAsync() {
+        return CompletableFuture.completedFuture(execute());
+    }
+
     public CommandType getType() {
         return type;
     }
@@ -1,6 +1,7 @@
 package bg.sofia.uni.fmi.mjt.bookmarks.manager.command;
 
 import bg.sofia.uni.fmi.mjt.bookmarks.manager.command.bookmark.AddToCommand;
+import bg.sofia.uni.fmi.mjt.bookmarks.manager.command.bookmark.BatchCommand;
 import bg.sofia.uni.fmi.mjt.bookmarks.manager.command.bookmark.CleanupCommand;
 import bg.sofia.uni.fmi.mjt.bookmarks.manager.command.bookmark.ImportChromeCommand;
 import bg.sofia.uni.fmi.mjt.bookmarks.manager.command.bookmark.ListCommand;
@@ -12,15 +13,39 @@ import bg.sofia.uni.fmi.mjt.bookmarks.manager.command.misc.UnknownCommand;
 import bg.sofia.uni.fmi.mjt.bookmarks.manager.command.user.LoginCommand;
 import bg.sofia.uni.fmi.mjt.bookmarks.manager.command.user.LogoutCommand;
 import bg.sofia.uni.fmi.mjt.bookmarks.manager.command.user.RegisterCommand;
+import bg.sofia.uni.fmi.mjt.bookmarks.manager.entity.BatchOperation;
 
 import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.BiFunction;
 
 public class CommandParser {
-    private static final String WHITESPACE_PATTERN = "\\s+";
-
     private static final int COMMAND_TOKEN_ID = 0;
 
+    /**
+     * The parser of every command, keyed by the lowercase command name.
+     */
+    private static final Map<String, BiFunction<SocketChannel, String[], Command>> PARSERS = Map.ofEntries(
+            Map.entry(CommandType.HELP.getName(), (sc, tokens) -> parseHelp(tokens)),
+            Map.entry(CommandType.REGISTER.getName(), (sc, tokens) -> parseRegister(tokens)),
+            Map.entry(CommandType.LOGIN.getName(), CommandParser::parseLogin),
+            Map.entry(CommandType.LOGOUT.getName(), CommandParser::parseLogout),
+            Map.entry(CommandType.NEW_GROUP.getName(), CommandParser::parseNewGroup),
+            Map.entry(CommandType.ADD_TO.getName(), CommandParser::parseAddTo),
+            Map.entry(CommandType.REMOVE_FROM.getName(), CommandParser::parseRemoveFrom),
+            Map.entry(CommandType.LIST.getName(), CommandParser::parseList),
+            Map.entry(CommandType.SEARCH.getName(), CommandParser::parseSearch),
+            Map.entry(CommandType.CLEANUP.getName(), CommandParser::parseCleanup),
+            Map.entry(CommandType.IMPORT_FROM_CHROME.getName(), CommandParser::parseImportFromChrome),
+            Map.entry(CommandType.BATCH.getName(), CommandParser::parseBatch)
+    );
+
+    private static final String BATCH_SEPARATOR = ";";
+
     private CommandParser() {
     }
 
@@ -29,26 +54,68 @@ public class CommandParser {
             return unknown();
         }
 
-        String[] tokens = line.split(WHITESPACE_PATTERN);
+        String[] tokens = tokenize(line);
+
+        if (tokens.length == 0) {
+            return unknown();
+        }
 
-        tokens[0] = tokens[0].toLowerCase();
+        tokens[COMMAND_TOKEN_ID] = tokens[COMMAND_TOKEN_ID].toLowerCase(Locale.ROOT);
 
-        CommandType type = matchCommandType(tokens[COMMAND_TOKEN_ID]);
+        BiFunction<SocketChannel, String[], Command> parser = PARSERS.get(tokens[COMMAND_TOKEN_ID]);
 
-        return switch (type) {
-            case HELP -> parseHelp(tokens);
-            case REGISTER -> parseRegister(tokens);
-            case LOGIN -> parseLogin(sc, tokens);
-            case LOGOUT -> parseLogout(sc, tokens);
-            case NEW_GROUP -> parseNewGroup(sc, tokens);
-            case ADD_TO -> parseAddTo(sc, tokens);
-            case REMOVE_FROM -> parseRemoveFrom(sc, tokens);
-            case LIST -> parseList(sc, tokens);
-            case SEARCH -> parseSearch(sc, tokens);
-            case CLEANUP -> parseCleanup(sc, tokens);
-            case IMPORT_FROM_CHROME -> parseImportFromChrome(sc, tokens);
-            case UNKNOWN -> unknown();
-        };
+        if (parser == null) {
+            return unknown();
+        }
+
+        return parser.apply(sc, tokens);
+    }
+
+    /**
+     * Splits the line into the tokens separated by whitespace without a regular expression.
+     * The line is scanned twice, first to count the tokens and then to copy them,
+     * so the only array allocated is the exactly sized result.
+     *
+     * @param line the command line.
+     * @return the tokens of the line, none if it is blank.
+     */
+    static String[] tokenize(CharSequence line) {
+        int length = line.length();
+        int count = 0;
+
+        for (int i = 0; i < length; i++) {
+            if (!isWhitespace(line.charAt(i)) && (i == 0 || isWhitespace(line.charAt(i - 1)))) {
+                count++;
+            }
+        }
+
+        String[] tokens = new String[count];
+
+        int token = 0;
+        int i = 0;
+
+        while (token < count) {
+            while (isWhitespace(line.charAt(i))) {
+                i++;
+            }
+
+            int start = i;
+
+            while (i < length && !isWhitespace(line.charAt(i))) {
+                i++;
+            }
+
+            tokens[token++] = line.subSequence(start, i).toString();
+        }
+
+        return tokens;
+    }
+
+    /**
+     * The characters matched by the {@code \s} regular expression class.
+     */
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
     }
 
     private static Command parseRemoveFrom(SocketChannel sc, String[] tokens) {
@@ -138,6 +205,24 @@ public class CommandParser {
             return searchCommand;
         }
 
+        if (tokens != null && tokens.length >= searchTokensLength &&
+            tokens[flagTokenId].equals("--query")) {
+            SearchCommand searchCommand = new SearchCommand(sc, tokens);
+
+            searchCommand.queryFlag(true);
+
+            return searchCommand;
+        }
+
+        if (tokens != null && tokens.length >= searchTokensLength &&
+            tokens[flagTokenId].equals("--ranked")) {
+            SearchCommand searchCommand = new SearchCommand(sc, tokens);
+
+            searchCommand.rankedFlag(true);
+
+            return searchCommand;
+        }
+
         return unknown();
     }
 
@@ -161,6 +246,59 @@ public class CommandParser {
         return unknown();
     }
 
+    /**
+     * Parses the sub-commands of a batch, separated by {@value #BATCH_SEPARATOR} tokens.
+     * Only new-group, add-to and remove-from may be batched. Any other or malformed
+     * sub-command becomes an invalid operation, which fails on its own without failing the batch.
+     */
+    private static Command parseBatch(SocketChannel sc, String[] tokens) {
+        final int minBatchTokensLength = 2;
+
+        if (tokens == null || tokens.length < minBatchTokensLength) {
+            return unknown();
+        }
+
+        List<BatchOperation> operations = new ArrayList<>();
+
+        int start = COMMAND_TOKEN_ID + 1;
+        for (int i = start; i <= tokens.length; i++) {
+            if (i < tokens.length && !tokens[i].equals(BATCH_SEPARATOR)) {
+                continue;
+            }
+
+            if (i > start) {
+                operations.add(parseBatchOperation(sc, Arrays.copyOfRange(tokens, start, i)));
+            }
+
+            start = i + 1;
+        }
+
+        if (operations.isEmpty()) {
+            return unknown();
+        }
+
+        return new BatchCommand(sc, operations, tokens);
+    }
+
+    private static BatchOperation parseBatchOperation(SocketChannel sc, String[] tokens) {
+        final int groupNameTokenId = 1;
+        final int urlTokenId = 2;
+        final int addToShortenTokensLength = 4;
+
+        tokens[COMMAND_TOKEN_ID] = tokens[COMMAND_TOKEN_ID].toLowerCase(Locale.ROOT);
+
+        BiFunction<SocketChannel, String[], Command> parser = PARSERS.get(tokens[COMMAND_TOKEN_ID]);
+        CommandType type = parser == null ? CommandType.UNKNOWN : parser.apply(sc, tokens).getType();
+
+        return switch (type) {
+            case NEW_GROUP -> BatchOperation.newGroup(tokens[groupNameTokenId]);
+            case ADD_TO -> BatchOperation.addTo(tokens[groupNameTokenId], tokens[urlTokenId],
+                    tokens.length == addToShortenTokensLength);
+            case REMOVE_FROM -> BatchOperation.removeFrom(tokens[groupNameTokenId], tokens[urlTokenId]);
+            default -> BatchOperation.invalid();
+        };
+    }
+
     private static Command parseRegister(String[] tokens) {
         final int registerTokensLength = 3;
 
@@ -206,13 +344,6 @@ public class CommandParser {
         return new UnknownCommand();
     }
 
-    private static CommandType matchCommandType(String command) {
-        return Arrays.stream(CommandType.values())
-                .filter(type -> command.equalsIgnoreCase(type.getName()))
-                .findFirst()
-                .orElse(CommandType.UNKNOWN);
-    }
-
     private static boolean validateTokens(String[] tokens, int expectedLength) {
         return tokens != null && tokens.length == expectedLength;
     }
@@ -12,7 +12,8 @@ public enum CommandType {
     LIST("list"),
     SEARCH("search"),
     CLEANUP("cleanup"),
-    IMPORT_FROM_CHROME("import-from-chrome");
+    IMPORT_FROM_CHROME("import-from-chrome"),
+    BATCH("batch");
 
     private final String name;
 
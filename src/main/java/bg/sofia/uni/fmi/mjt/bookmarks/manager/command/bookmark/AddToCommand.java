@@ -7,6 +7,7 @@ import bg.sofia.uni.fmi.mjt.bookmarks.manager.entity.Status;
 import bg.sofia.uni.fmi.mjt.bookmarks.manager.service.Dispatcher;
 
 import java.nio.channels.SocketChannel;
+import java.util.concurrent.CompletableFuture;
 
 public class AddToCommand extends AuthCommand {
     private static final int GROUP_NAME_TOKEN_ID = 1;
@@ -41,4 +42,24 @@ public class AddToCommand extends AuthCommand {
 
         return addTo.response();
     }
+
+    @Override
+    public CompletableFuture<String> executeAsync() {
+        Response<String> authResponse = Dispatcher.authManager().auth(sc);
+
+        if (authResponse.status() == Status.ERROR) {
+            return CompletableFuture.completedFuture(authResponse.response());
+        }
+
+        String caller = authResponse.response();
+
+        String groupName = args.get(GROUP_NAME_TOKEN_ID);
+        String url = args.get(URL_TOKEN_ID);
+
+        CompletableFuture<Response<String>> addTo = shorten ?
+                Dispatcher.bookmarkManager().addToShortenAsync(groupName, url, caller) :
+                Dispatcher.bookmarkManager().addToAsync(groupName, url, caller);
+
+        return addTo.thenApply(Response::response);
+    }
 }
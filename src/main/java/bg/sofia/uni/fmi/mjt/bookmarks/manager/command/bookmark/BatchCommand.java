@@ -0,0 +1,51 @@
+package bg.sofia.uni.fmi.mjt.bookmarks.manager.command.bookmark;
+
+import bg.sofia.uni.fmi.mjt.bookmarks.manager.command.AuthCommand;
+import bg.sofia.uni.fmi.mjt.bookmarks.manager.command.CommandType;
+import bg.sofia.uni.fmi.mjt.bookmarks.manager.entity.BatchOperation;
+import bg.sofia.uni.fmi.mjt.bookmarks.manager.entity.Response;
+import bg.sofia.uni.fmi.mjt.bookmarks.manager.entity.Status;
+import bg.sofia.uni.fmi.mjt.bookmarks.manager.service.Dispatcher;
+
+import java.nio.channels.SocketChannel;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+public class BatchCommand extends AuthCommand {
+    private final List<BatchOperation> operations;
+
+    public BatchCommand(SocketChannel sc, List<BatchOperation> operations, String... args) {
+        super(sc, CommandType.BATCH, args);
+        this.operations = List.copyOf(operations);
+    }
+
+    public List<BatchOperation> getOperations() {
+        return operations;
+    }
+
+    @Override
+    public String execute() {
+        Response<String> authResponse = Dispatcher.authManager().auth(sc);
+
+        if (authResponse.status() == Status.ERROR) {
+            return authResponse.response();
+        }
+
+        String caller = authResponse.response();
+
+        return Dispatcher.bookmarkManager().batch(operations, caller).response();
+    }
+
+    @Override
+    public CompletableFuture<String> executeAsync() {
+        Response<String> authResponse = Dispatcher.authManager().auth(sc);
+
+        if (authResponse.status() == Status.ERROR) {
+            return CompletableFuture.completedFuture(authResponse.response());
+        }
+
+        String caller = authResponse.response();
+
+        return Dispatcher.bookmarkManager().batchAsync(operations, caller).thenApply(Response::response);
+    }
+}
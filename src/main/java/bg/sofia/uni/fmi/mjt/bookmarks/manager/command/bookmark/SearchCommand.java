@@ -18,6 +18,8 @@ public class SearchCommand extends AuthCommand {
 
     private boolean tagsFlag = false;
     private boolean titleFlag = false;
+    private boolean queryFlag = false;
+    private boolean rankedFlag = false;
 
     public SearchCommand(SocketChannel sc, String... args) {
         super(sc, CommandType.SEARCH, args);
@@ -41,6 +43,22 @@ public class SearchCommand extends AuthCommand {
                     .response();
         }
 
+        if (rankedFlag) {
+            List<String> terms = args.subList(2, args.size());
+
+            return Dispatcher.bookmarkManager()
+                    .searchRanked(terms, caller)
+                    .response();
+        }
+
+        if (queryFlag) {
+            String query = String.join(" ", args.subList(2, args.size()));
+
+            return Dispatcher.bookmarkManager()
+                    .searchByQuery(query, caller)
+                    .response();
+        }
+
         if (titleFlag) {
             return Dispatcher.bookmarkManager()
                     .searchByTitle(args.get(GROUP_NAME_TOKEN_ID), caller)
@@ -57,4 +75,12 @@ public class SearchCommand extends AuthCommand {
     public void titleFlag(boolean titleFlag) {
         this.titleFlag = titleFlag;
     }
+
+    public void queryFlag(boolean queryFlag) {
+        this.queryFlag = queryFlag;
+    }
+
+    public void rankedFlag(boolean rankedFlag) {
+        this.rankedFlag = rankedFlag;
+    }
 }
@@ -14,8 +14,11 @@ public class HelpCommand extends Command {
                                                "list --group-name <group-name>" + System.lineSeparator() +
                                                "search --tags <tag> [<tag> ...] " + System.lineSeparator() +
                                                "search --title <title> " + System.lineSeparator() +
+                                               "search --query <tag> [AND|OR|NOT <tag> ...] " + System.lineSeparator() +
+                                               "search --ranked <term> [<term> ...] " + System.lineSeparator() +
                                                "cleanup " + System.lineSeparator() +
                                                "import-from-chrome " + System.lineSeparator() +
+                                               "batch <command> [; <command> ...] " + System.lineSeparator() +
                                                "toggle-prompt";
 
     public HelpCommand() {
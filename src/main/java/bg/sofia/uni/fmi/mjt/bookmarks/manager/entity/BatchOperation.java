@@ -0,0 +1,32 @@
+package bg.sofia.uni.fmi.mjt.bookmarks.manager.entity;
+
+/**
+ * A single bookmark mutation carried by a batch request.
+ *
+ * @param kind      the kind of the operation.
+ * @param groupName the group the operation applies to.
+ * @param url       the bookmark url or null for a new group.
+ * @param shorten   whether the url is shortened before the bookmark is added.
+ */
+public record BatchOperation(Kind kind, String groupName, String url, boolean shorten) {
+
+    public enum Kind {
+        NEW_GROUP, ADD_TO, REMOVE_FROM, INVALID
+    }
+
+    public static BatchOperation newGroup(String groupName) {
+        return new BatchOperation(Kind.NEW_GROUP, groupName, null, false);
+    }
+
+    public static BatchOperation addTo(String groupName, String url, boolean shorten) {
+        return new BatchOperation(Kind.ADD_TO, groupName, url, shorten);
+    }
+
+    public static BatchOperation removeFrom(String groupName, String url) {
+        return new BatchOperation(Kind.REMOVE_FROM, groupName, url, false);
+    }
+
+    public static BatchOperation invalid() {
+        return new BatchOperation(Kind.INVALID, null, null, false);
+    }
+}
@@ -1,26 +1,48 @@
 package bg.sofia.uni.fmi.mjt.bookmarks.manager.entity;
 
+import bg.sofia.uni.fmi.mjt.bookmarks.manager.utils.TagDictionary;
+import com.google.gson.annotations.JsonAdapter;
+
 import java.net.URL;
+import java.util.AbstractList;
 import java.util.List;
 import java.util.Objects;
+import java.util.RandomAccess;
 import java.util.stream.Collectors;
 
+@JsonAdapter(BookmarkAdapter.class)
 public class Bookmark {
     private final String title;
     private final URL url;
-    private final List<String> tags;
+    private final int[] tagIds;
 
     private static final int MAX_TAGS_PRINT = 5;
 
     public Bookmark(String title, URL url, List<String> tags) {
         this.title = title;
         this.url = url;
-        this.tags = tags;
+        this.tagIds = tags == null ? new int[0] : tags.stream().mapToInt(TagDictionary::id).toArray();
+    }
+
+    private Bookmark(Bookmark shared, URL url) {
+        this.title = shared.title;
+        this.url = url;
+        this.tagIds = shared.tagIds;
+    }
+
+    /**
+     * @param url the url, as spelled by the user bookmarking it.
+     * @return a bookmark of the url sharing the title and the tags of this one, or this one if its url is spelled
+     * the same way.
+     */
+    public Bookmark withUrl(URL url) {
+        return url == null || this.url != null && this.url.toString().equals(url.toString()) ?
+                this : new Bookmark(this, url);
     }
 
     @Override
     public String toString() {
-        String tagsPretty = tags.stream()
+        String tagsPretty = tags().stream()
                 .limit(MAX_TAGS_PRINT)
                 .collect(Collectors.joining(", "));
 
@@ -51,7 +73,22 @@ public class Bookmark {
         return url;
     }
 
+    /**
+     * @return an unmodifiable view of the tags, looked up in the {@link TagDictionary}.
+     */
     public List<String> tags() {
-        return tags;
+        return new TagList();
+    }
+
+    private final class TagList extends AbstractList<String> implements RandomAccess {
+        @Override
+        public String get(int index) {
+            return TagDictionary.tag(tagIds[index]);
+        }
+
+        @Override
+        public int size() {
+            return tagIds.length;
+        }
     }
 }
@@ -0,0 +1,86 @@
+package bg.sofia.uni.fmi.mjt.bookmarks.manager.entity;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Stores a bookmark with its tags as strings, so the tag ids never leave the process.
+ */
+class BookmarkAdapter extends TypeAdapter<Bookmark> {
+    private static final String TITLE = "title";
+    private static final String URL_NAME = "url";
+    private static final String TAGS = "tags";
+
+    @Override
+    public void write(JsonWriter out, Bookmark bookmark) throws IOException {
+        if (bookmark == null) {
+            out.nullValue();
+            return;
+        }
+
+        out.beginObject();
+
+        if (bookmark.title() != null) {
+            out.name(TITLE).value(bookmark.title());
+        }
+
+        if (bookmark.url() != null) {
+            out.name(URL_NAME).value(bookmark.url().toExternalForm());
+        }
+
+        out.name(TAGS).beginArray();
+        for (String tag : bookmark.tags()) {
+            out.value(tag);
+        }
+        out.endArray();
+
+        out.endObject();
+    }
+
+    @Override
+    public Bookmark read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+
+        String title = null;
+        URL url = null;
+        List<String> tags = new ArrayList<>();
+
+        in.beginObject();
+
+        while (in.hasNext()) {
+            String name = in.nextName();
+
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                continue;
+            }
+
+            switch (name) {
+                case TITLE -> title = in.nextString();
+                case URL_NAME -> url = new URL(in.nextString());
+                case TAGS -> {
+                    in.beginArray();
+                    while (in.hasNext()) {
+                        tags.add(in.nextString());
+                    }
+                    in.endArray();
+                }
+                default -> in.skipValue();
+            }
+        }
+
+        in.endObject();
+
+        return new Bookmark(title, url, tags);
+    }
+}
@@ -0,0 +1,32 @@
+package bg.sofia.uni.fmi.mjt.bookmarks.manager.entity;
+
+import java.net.HttpURLConnection;
+
+/**
+ * The outcome of checking a single bookmarked url.
+ *
+ * @param url        the checked url.
+ * @param statusCode the final HTTP status or -1 if the url could not be checked.
+ * @param error      why the url could not be checked or null if it was.
+ */
+public record LinkStatus(String url, int statusCode, String error) {
+
+    public static LinkStatus of(String url, int statusCode) {
+        return new LinkStatus(url, statusCode, null);
+    }
+
+    public static LinkStatus failed(String url, String error) {
+        return new LinkStatus(url, -1, error);
+    }
+
+    /**
+     * @return true if the page is gone and the bookmark should be removed.
+     */
+    public boolean isBroken() {
+        return statusCode == HttpURLConnection.HTTP_NOT_FOUND || statusCode == HttpURLConnection.HTTP_GONE;
+    }
+
+    public boolean isFailed() {
+        return error != null;
+    }
+}
@@ -0,0 +1,9 @@
+package bg.sofia.uni.fmi.mjt.bookmarks.manager.exception;
+
+import java.io.IOException;
+
+public class FrameTooLongException extends IOException {
+    public FrameTooLongException(String message) {
+        super(message);
+    }
+}
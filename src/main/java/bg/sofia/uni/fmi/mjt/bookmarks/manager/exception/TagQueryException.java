@@ -0,0 +1,13 @@
+package bg.sofia.uni.fmi.mjt.bookmarks.manager.exception;
+
+public class TagQueryException extends Exception {
+
+    public TagQueryException(String message) {
+        super(message);
+    }
+
+    public TagQueryException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+}
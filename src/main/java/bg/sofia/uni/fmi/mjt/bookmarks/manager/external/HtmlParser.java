@@ -4,11 +4,97 @@ import org.jsoup.Jsoup;
 import org.jsoup.nodes.Document;
 
 import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
 
 public class HtmlParser {
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(15);
 
+    private final HttpClient httpClient;
+    private final Executor parseExecutor;
+
+    public HtmlParser() {
+        this(HttpClient.newBuilder().followRedirects(HttpClient.Redirect.NORMAL).build(), ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param httpClient    the client the pages are fetched with.
+     * @param parseExecutor the executor the fetched pages are parsed on.
+     */
+    public HtmlParser(HttpClient httpClient, Executor parseExecutor) {
+        this.httpClient = httpClient;
+        this.parseExecutor = parseExecutor;
+    }
+
+    /**
+     * Fetches the page the same way as {@link #parseAsync(String)}, waiting for it.
+     *
+     * @param url the url of the page.
+     * @return the parsed page.
+     * @throws IOException if the url is invalid, the page cannot be fetched, its status is not 2xx
+     *                     or it is not an html page.
+     */
     public Document parse(String url) throws IOException {
-        return Jsoup.connect(url).get();
+        try {
+            return parseAsync(url).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof IOException cause) {
+                throw cause;
+            }
+
+            throw new IOException("Could not fetch " + url, e.getCause() != null ? e.getCause() : e);
+        }
+    }
+
+    /**
+     * Fetches the page without blocking the calling thread. The page is parsed on the parse executor
+     * once its body has arrived, so no thread waits for a slow site.
+     *
+     * @param url the url of the page.
+     * @return the parsed page. Completes exceptionally with an IOException if the url is invalid,
+     * the page cannot be fetched, its status is not 2xx or it is not an html page.
+     */
+    public CompletableFuture<Document> parseAsync(String url) {
+        HttpRequest request;
+        try {
+            request = HttpRequest.newBuilder(URI.create(url))
+                    .timeout(REQUEST_TIMEOUT)
+                    .header("Accept", "text/html,application/xhtml+xml")
+                    .GET()
+                    .build();
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.failedFuture(new IOException("Invalid url " + url, e));
+        }
+
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+                .thenApplyAsync(HtmlParser::toDocument, parseExecutor);
     }
 
+    private static Document toDocument(HttpResponse<String> response) {
+        int status = response.statusCode();
+
+        if (status < HttpURLConnection.HTTP_OK || status >= HttpURLConnection.HTTP_MULT_CHOICE) {
+            throw new CompletionException(
+                    new IOException("HTTP error fetching " + response.uri() + ", status " + status));
+        }
+
+        String contentType = response.headers().firstValue("Content-Type").orElse("text/html")
+                .toLowerCase(Locale.ROOT);
+
+        if (!contentType.startsWith("text/") && !contentType.contains("xml")) {
+            throw new CompletionException(
+                    new IOException("Unsupported content type " + contentType + " of " + response.uri()));
+        }
+
+        return Jsoup.parse(response.body(), response.uri().toString());
+    }
 }
@@ -0,0 +1,86 @@
+package bg.sofia.uni.fmi.mjt.bookmarks.manager.network;
+
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A thread-safe pool of equally sized byte buffers shared by the networking layer.
+ * Buffers released when the pool is full are left to the garbage collector.
+ */
+public class BufferPool {
+    private final int chunkSize;
+    private final int maxPooled;
+    private final boolean direct;
+
+    private final Queue<ByteBuffer> free = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pooled = new AtomicInteger(0);
+
+    /**
+     * @param chunkSize the capacity of every buffer in the pool.
+     * @param maxPooled the maximum number of idle buffers kept for reuse.
+     * @param direct    whether the buffers are allocated outside the Java heap.
+     */
+    public BufferPool(int chunkSize, int maxPooled, boolean direct) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Chunk size must be positive.");
+        }
+
+        this.chunkSize = chunkSize;
+        this.maxPooled = maxPooled;
+        this.direct = direct;
+    }
+
+    /**
+     * Borrows a cleared buffer of {@link #chunkSize()} bytes.
+     *
+     * @return a pooled buffer or a newly allocated one if the pool is empty.
+     */
+    public ByteBuffer acquire() {
+        ByteBuffer buffer = free.poll();
+
+        if (buffer == null) {
+            return direct ? ByteBuffer.allocateDirect(chunkSize) : ByteBuffer.allocate(chunkSize);
+        }
+
+        pooled.decrementAndGet();
+        return buffer.clear();
+    }
+
+    /**
+     * Allocates a buffer of any size of the same kind as the pooled ones. The buffer is never pooled.
+     *
+     * @param capacity the capacity of the buffer.
+     * @return a newly allocated direct or heap buffer.
+     */
+    public ByteBuffer allocate(int capacity) {
+        return direct ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity);
+    }
+
+    /**
+     * Returns a buffer to the pool. Buffers of a different size or kind are ignored.
+     *
+     * @param buffer the buffer to return; it must not be used by the caller afterwards.
+     */
+    public void release(ByteBuffer buffer) {
+        if (buffer == null || buffer.capacity() != chunkSize || buffer.isDirect() != direct) {
+            return;
+        }
+
+        if (pooled.incrementAndGet() > maxPooled) {
+            pooled.decrementAndGet();
+            return;
+        }
+
+        free.offer(buffer);
+    }
+
+    public int chunkSize() {
+        return chunkSize;
+    }
+
+    public int pooledCount() {
+        return pooled.get();
+    }
+}
@@ -0,0 +1,192 @@
+package bg.sofia.uni.fmi.mjt.bookmarks.manager.network;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.Queue;
+
+/**
+ * Per-connection state attached to the connection's selection key.
+ * It is accessed only by the selector thread which owns the key.
+ */
+public class Connection {
+    private static final int MAX_GATHERING_BUFFERS = 16;
+
+    private final SocketChannel channel;
+    private final BufferPool pool;
+    private final LineFrameDecoder decoder;
+    private final Queue<Request> pendingCommands = new ArrayDeque<>();
+    private final Deque<ByteBuffer> outbound = new ArrayDeque<>();
+
+    private boolean executing = false;
+    private int nextSequence = 0;
+    private long outboundBytes = 0;
+    private boolean deflateEnabled = false;
+    private long lastActivityMillis;
+    private TimingWheel.Timeout<SelectionKey> timeout;
+
+    public Connection(SocketChannel channel, BufferPool pool, int maxFrameLength, long nowMillis) {
+        this.channel = channel;
+        this.pool = pool;
+        this.decoder = new LineFrameDecoder(pool, maxFrameLength);
+        this.lastActivityMillis = nowMillis;
+    }
+
+    /**
+     * Reads the available bytes from the channel and queues every complete command line
+     * under the next request sequence number. If the first line of the connection asks for
+     * compressed responses, it turns compression on instead of being queued.
+     *
+     * @return the number of bytes read or -1 if the client has closed the connection.
+     * @throws IOException if the read fails or a command line is too long.
+     */
+    public int read() throws IOException {
+        int r = decoder.readFrom(channel);
+
+        if (r > 0) {
+            for (String line : decoder.decode()) {
+                if (nextSequence == 0 && !deflateEnabled && line.equals(ResponseFrame.DEFLATE_CAPABILITY)) {
+                    deflateEnabled = true;
+                    continue;
+                }
+
+                pendingCommands.add(new Request(nextSequence++, line));
+            }
+        }
+
+        return r;
+    }
+
+    /**
+     * Queues the chunks of a response to be written to the client.
+     *
+     * @param chunks the response buffers, ready to be read.
+     */
+    public void enqueue(Collection<ByteBuffer> chunks) {
+        for (ByteBuffer chunk : chunks) {
+            outboundBytes += chunk.remaining();
+            outbound.add(chunk);
+        }
+    }
+
+    /**
+     * Writes as much of the queued output as the channel accepts without blocking.
+     * Several chunks are written at once with a gathering write.
+     *
+     * @return true if the whole queued output is written, false if some of it is still pending.
+     * @throws IOException if the write fails.
+     */
+    public boolean flush() throws IOException {
+        while (!outbound.isEmpty()) {
+            ByteBuffer[] chunks = outbound.stream()
+                    .limit(MAX_GATHERING_BUFFERS)
+                    .toArray(ByteBuffer[]::new);
+
+            long written = channel.write(chunks);
+            outboundBytes -= written;
+
+            while (!outbound.isEmpty() && !outbound.peekFirst().hasRemaining()) {
+                pool.release(outbound.pollFirst());
+            }
+
+            if (written == 0) {
+                break;
+            }
+        }
+
+        return outbound.isEmpty();
+    }
+
+    /**
+     * Closes the channel and returns all the borrowed buffers to the pool.
+     *
+     * @throws IOException if the channel cannot be closed.
+     */
+    public void close() throws IOException {
+        if (timeout != null) {
+            timeout.cancel();
+        }
+
+        decoder.release();
+
+        while (!outbound.isEmpty()) {
+            pool.release(outbound.pollFirst());
+        }
+
+        outboundBytes = 0;
+        channel.close();
+    }
+
+    public boolean hasPendingOutput() {
+        return !outbound.isEmpty();
+    }
+
+    /**
+     * @return the number of queued response bytes the client has not received yet.
+     */
+    public long outboundBytes() {
+        return outboundBytes;
+    }
+
+    /**
+     * @return true if the client has asked for compressed responses.
+     */
+    public boolean isDeflateEnabled() {
+        return deflateEnabled;
+    }
+
+    public SocketChannel channel() {
+        return channel;
+    }
+
+    public boolean hasPendingCommands() {
+        return !pendingCommands.isEmpty();
+    }
+
+    /**
+     * @return the number of received commands which are not answered yet, including the executing one.
+     */
+    public int inFlightCount() {
+        return pendingCommands.size() + (executing ? 1 : 0);
+    }
+
+    public Request nextCommand() {
+        return pendingCommands.poll();
+    }
+
+    public boolean isExecuting() {
+        return executing;
+    }
+
+    public void setExecuting(boolean executing) {
+        this.executing = executing;
+    }
+
+    /**
+     * @return true if the client has sent at least one complete command.
+     */
+    public boolean hasReceivedCommand() {
+        return nextSequence > 0;
+    }
+
+    /**
+     * Records that the client has sent data or accepted some of the output.
+     *
+     * @param nowMillis the current time.
+     */
+    public void touch(long nowMillis) {
+        lastActivityMillis = nowMillis;
+    }
+
+    public long lastActivityMillis() {
+        return lastActivityMillis;
+    }
+
+    public void setTimeout(TimingWheel.Timeout<SelectionKey> timeout) {
+        this.timeout = timeout;
+    }
+}
@@ -0,0 +1,89 @@
+package bg.sofia.uni.fmi.mjt.bookmarks.manager.network;
+
+import bg.sofia.uni.fmi.mjt.bookmarks.manager.logger.Level;
+import bg.sofia.uni.fmi.mjt.bookmarks.manager.service.Dispatcher;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Admission control for the connections of the whole server, shared by all the reactors.
+ * A connection takes a slot when accepted and gives it back when closed.
+ */
+public class ConnectionLimiter {
+    private static final String AT_CAPACITY_MESSAGE = "The server is at capacity. Please try again later.";
+
+    private final int maxConnections;
+    private final AtomicInteger open = new AtomicInteger(0);
+
+    /**
+     * @param maxConnections the maximum number of open connections or 0 for no limit.
+     */
+    public ConnectionLimiter(int maxConnections) {
+        this.maxConnections = maxConnections;
+    }
+
+    /**
+     * Takes a connection slot if there is a free one.
+     *
+     * @return true if the connection is admitted, false if the server is at capacity.
+     */
+    public boolean tryAcquire() {
+        while (true) {
+            int current = open.get();
+
+            if (maxConnections > 0 && current >= maxConnections) {
+                return false;
+            }
+
+            if (open.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Gives back the slot of a closed connection.
+     */
+    public void release() {
+        open.decrementAndGet();
+    }
+
+    public int openConnections() {
+        return open.get();
+    }
+
+    /**
+     * Tells a connection which is not admitted that the server is at capacity and closes it.
+     * The message is written without blocking and is dropped if the socket does not accept it at once.
+     *
+     * @param channel the rejected client channel.
+     * @param pool    the pool the response buffers are borrowed from.
+     */
+    public void reject(SocketChannel channel, BufferPool pool) {
+        String address = channel.socket().getInetAddress().toString();
+        int port = channel.socket().getPort();
+
+        String rejectMsg = String.format(
+                "Client with address %s:%d has been rejected. The server is at capacity.",
+                address, port);
+
+        System.out.println(rejectMsg);
+
+        List<ByteBuffer> frame = ResponseFrame.encode(0, AT_CAPACITY_MESSAGE, pool);
+
+        try (channel) {
+            channel.configureBlocking(false);
+            channel.write(frame.toArray(ByteBuffer[]::new));
+        } catch (IOException e) {
+            String logMsg = ConnectionLimiter.class + " " + e.getMessage();
+            Dispatcher.logger().log(Level.WARN, LocalDateTime.now(), logMsg);
+        } finally {
+            frame.forEach(pool::release);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package bg.sofia.uni.fmi.mjt.bookmarks.manager.network;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Counts the commands of the whole server handed to the workers and not completed yet, shared by all the reactors.
+ * A command completing asynchronously is counted until its future completes, even after its connection is closed,
+ * so the server can wait for it before the data is stored.
+ */
+public class InFlightCommands {
+    private int count = 0;
+
+    public synchronized void begin() {
+        count++;
+    }
+
+    public synchronized void end() {
+        if (--count == 0) {
+            notifyAll();
+        }
+    }
+
+    public synchronized int count() {
+        return count;
+    }
+
+    /**
+     * Waits for every counted command to complete.
+     *
+     * @param timeoutMillis how long to wait at most.
+     * @return true if no command is in flight anymore, false if the timeout has passed first.
+     * @throws InterruptedException if the waiting thread is interrupted.
+     */
+    public synchronized boolean awaitCompletion(long timeoutMillis) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+
+        while (count > 0) {
+            long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+
+            if (remaining <= 0) {
+                return false;
+            }
+
+            wait(remaining);
+        }
+
+        return true;
+    }
+}
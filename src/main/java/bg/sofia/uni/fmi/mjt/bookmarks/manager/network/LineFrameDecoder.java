@@ -0,0 +1,148 @@
+package bg.sofia.uni.fmi.mjt.bookmarks.manager.network;
+
+import bg.sofia.uni.fmi.mjt.bookmarks.manager.exception.FrameTooLongException;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Accumulates the bytes read from a single connection and splits them
+ * into newline-delimited frames. A frame may span several reads and
+ * a single read may contain several frames.
+ * The accumulator is borrowed from a {@link BufferPool} only while there are unprocessed bytes,
+ * so idle connections do not hold any buffer.
+ */
+public class LineFrameDecoder {
+    private static final byte LINE_FEED = '\n';
+    private static final byte CARRIAGE_RETURN = '\r';
+
+    private final BufferPool pool;
+    private final int maxFrameLength;
+
+    private ByteBuffer accumulator;
+    private boolean isPooled = false;
+    private int scanned = 0;
+
+    public LineFrameDecoder(BufferPool pool, int maxFrameLength) {
+        this.pool = pool;
+        this.maxFrameLength = maxFrameLength;
+    }
+
+    /**
+     * Reads the currently available bytes from the channel into the accumulator.
+     *
+     * @param channel the channel to read from.
+     * @return the number of bytes read or -1 if the end of stream is reached.
+     * @throws IOException if the read fails.
+     */
+    public int readFrom(ReadableByteChannel channel) throws IOException {
+        if (accumulator == null) {
+            accumulator = pool.acquire();
+            isPooled = true;
+        }
+
+        if (!accumulator.hasRemaining()) {
+            grow();
+        }
+
+        int r = channel.read(accumulator);
+
+        if (accumulator.position() == 0) {
+            release();
+        }
+
+        return r;
+    }
+
+    /**
+     * Extracts all the complete frames accumulated so far.
+     * The incomplete tail, if any, is kept for the next reads.
+     *
+     * @return the decoded frames without their line terminators.
+     */
+    public List<String> decode() {
+        List<String> frames = new ArrayList<>();
+
+        if (accumulator == null) {
+            return frames;
+        }
+
+        int end = accumulator.position();
+        int frameStart = 0;
+
+        for (int i = scanned; i < end; i++) {
+            if (accumulator.get(i) != LINE_FEED) {
+                continue;
+            }
+
+            int frameEnd = i;
+            if (frameEnd > frameStart && accumulator.get(frameEnd - 1) == CARRIAGE_RETURN) {
+                --frameEnd;
+            }
+
+            frames.add(decodeFrame(frameStart, frameEnd));
+            frameStart = i + 1;
+        }
+
+        accumulator.flip();
+        accumulator.position(frameStart);
+        accumulator.compact();
+
+        scanned = accumulator.position();
+
+        if (scanned == 0) {
+            release();
+        }
+
+        return frames;
+    }
+
+    /**
+     * Returns the accumulator to the pool, dropping any incomplete frame.
+     * An accumulator grown beyond a pooled buffer is left to the garbage collector.
+     */
+    public void release() {
+        if (accumulator != null) {
+            if (isPooled) {
+                pool.release(accumulator);
+            }
+
+            accumulator = null;
+            isPooled = false;
+            scanned = 0;
+        }
+    }
+
+    private String decodeFrame(int from, int to) {
+        ByteBuffer frame = accumulator.duplicate();
+        frame.position(from);
+        frame.limit(to);
+
+        return StandardCharsets.UTF_8.decode(frame).toString();
+    }
+
+    private void grow() throws FrameTooLongException {
+        int capacity = accumulator.capacity();
+
+        if (capacity >= maxFrameLength) {
+            throw new FrameTooLongException(
+                    String.format("A frame exceeds the maximum length of %d bytes.", maxFrameLength));
+        }
+
+        ByteBuffer grown = pool.allocate(Math.min(capacity * 2, maxFrameLength));
+
+        accumulator.flip();
+        grown.put(accumulator);
+
+        if (isPooled) {
+            pool.release(accumulator);
+        }
+
+        accumulator = grown;
+        isPooled = false;
+    }
+}
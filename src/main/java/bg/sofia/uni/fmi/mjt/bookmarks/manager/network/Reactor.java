@@ -0,0 +1,635 @@
+package bg.sofia.uni.fmi.mjt.bookmarks.manager.network;
+
+import bg.sofia.uni.fmi.mjt.bookmarks.manager.ServerConfig;
+import bg.sofia.uni.fmi.mjt.bookmarks.manager.command.Command;
+import bg.sofia.uni.fmi.mjt.bookmarks.manager.command.CommandParser;
+import bg.sofia.uni.fmi.mjt.bookmarks.manager.logger.Level;
+import bg.sofia.uni.fmi.mjt.bookmarks.manager.service.Dispatcher;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.LongStream;
+
+/**
+ * A selector loop serving the I/O of a set of connections.
+ * Every connection is owned by exactly one reactor and its state is touched only by the reactor's thread.
+ * Other threads hand work to the reactor through its task queue.
+ * Connections which stay silent for too long are closed by a timing wheel advanced from the selector loop.
+ * A reactor can be drained: it stops reading, answers the commands already received and exits
+ * once every connection has received its responses or the drain deadline has passed.
+ */
+public class Reactor implements Runnable {
+    private static final String INTERNAL_ERROR_MESSAGE = "An internal problem occurred. " +
+                                                         "Please try again or contact an administrator";
+
+    private static final int MAX_COMMAND_LENGTH = 64 * 1024;
+
+    private static final long TIMEOUT_TICK_MILLIS = 1000;
+    private static final int TIMEOUT_WHEEL_SIZE = 512;
+
+    private final String name;
+    private final ServerConfig config;
+    private final ExecutorService workers;
+    private final BufferPool pool;
+    private final ConnectionLimiter limiter;
+    private final InFlightCommands inFlight;
+    private final Selector selector;
+    private final TimingWheel<SelectionKey> timeouts;
+    private final long timeoutCheckMillis;
+
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean isRunning = new AtomicBoolean(true);
+    private final AtomicInteger connections = new AtomicInteger(0);
+
+    private SelectionKey acceptKey;
+    private boolean isDraining = false;
+    private long drainDeadlineMillis;
+
+    /**
+     * @param name     the reactor name used in the logs.
+     * @param config   the server configuration.
+     * @param workers  the pool executing the commands or null to execute them on the reactor thread.
+     * @param pool     the pool the connection buffers are borrowed from.
+     * @param limiter  the admission control shared by all the reactors of the server.
+     * @param inFlight the count of the commands handed to the workers, shared by all the reactors of the server.
+     * @throws IOException if the selector cannot be opened.
+     */
+    public Reactor(String name, ServerConfig config, ExecutorService workers, BufferPool pool,
+                   ConnectionLimiter limiter, InFlightCommands inFlight) throws IOException {
+        this.name = name;
+        this.config = config;
+        this.workers = workers;
+        this.pool = pool;
+        this.limiter = limiter;
+        this.inFlight = inFlight;
+        this.selector = Selector.open();
+        this.timeouts = new TimingWheel<>(TIMEOUT_TICK_MILLIS, TIMEOUT_WHEEL_SIZE, now());
+        this.timeoutCheckMillis = shortestTimeout(config);
+    }
+
+    /**
+     * Makes the reactor accept the connections of the server channel itself.
+     * Must be called before the reactor is started.
+     *
+     * @param serverChannel the listening channel.
+     * @throws IOException if the channel cannot be registered.
+     */
+    public void acceptFrom(ServerSocketChannel serverChannel) throws IOException {
+        acceptKey = serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+    }
+
+    /**
+     * Hands an accepted connection to this reactor. Safe to call from any thread.
+     * The connection must already hold a slot of the reactor's {@link ConnectionLimiter}.
+     *
+     * @param channel the accepted client channel.
+     */
+    public void register(SocketChannel channel) {
+        connections.incrementAndGet();
+
+        tasks.add(() -> {
+            try {
+                registerConnection(channel);
+            } catch (IOException e) {
+                closeOnError(channel, e);
+            }
+        });
+
+        selector.wakeup();
+    }
+
+    public int connectionCount() {
+        return connections.get();
+    }
+
+    public boolean isRunning() {
+        return isRunning.get();
+    }
+
+    public void stop() {
+        isRunning.set(false);
+        selector.wakeup();
+    }
+
+    /**
+     * Stops accepting and reading. The commands already received are still executed
+     * and the reactor exits once all the responses are written or the timeout has passed,
+     * closing the connections. Safe to call from any thread.
+     *
+     * @param timeoutMillis how long to wait for the connections to be drained.
+     */
+    public void drain(long timeoutMillis) {
+        tasks.add(() -> beginDrain(timeoutMillis));
+        selector.wakeup();
+    }
+
+    @Override
+    public void run() {
+        try {
+            while (isRunning.get()) {
+                int readyChannels = selector.select(selectTimeout());
+
+                runTasks();
+                timeouts.advance(now(), this::expireIfIdle);
+
+                if (isDraining && isDrained()) {
+                    break;
+                }
+
+                if (readyChannels <= 0 || !isRunning.get()) {
+                    continue;
+                }
+
+                Set<SelectionKey> selectedKeys = selector.selectedKeys();
+                Iterator<SelectionKey> keyIt = selectedKeys.iterator();
+
+                while (keyIt.hasNext()) {
+                    SelectionKey key = keyIt.next();
+
+                    if (key.isAcceptable()) {
+                        handleAccept(key);
+                    } else {
+                        if (key.isReadable()) {
+                            handleRead(key);
+                        }
+
+                        if (key.isValid() && key.isWritable()) {
+                            handleWrite(key);
+                        }
+                    }
+
+                    keyIt.remove();
+                }
+            }
+        } catch (IOException e) {
+            String logMsg = Reactor.class + " " + name + " " + e.getMessage();
+            Dispatcher.logger().log(Level.ERROR, LocalDateTime.now(), logMsg);
+            Dispatcher.logger().log(Level.ERROR, LocalDateTime.now(), Arrays.toString(e.getStackTrace()));
+
+            e.printStackTrace();
+        } finally {
+            isRunning.set(false);
+            closeAll();
+            ResponseFrame.releaseDeflater();
+        }
+    }
+
+    private long selectTimeout() {
+        long timeout = timeouts.isEmpty() ? 0 : timeouts.millisUntilNextTick(now());
+
+        if (isDraining) {
+            long remaining = Math.max(drainDeadlineMillis - now(), 1);
+            timeout = timeout == 0 ? remaining : Math.min(timeout, remaining);
+        }
+
+        return timeout;
+    }
+
+    private void beginDrain(long timeoutMillis) {
+        if (isDraining) {
+            return;
+        }
+
+        isDraining = true;
+        drainDeadlineMillis = now() + timeoutMillis;
+
+        if (acceptKey != null) {
+            acceptKey.cancel();
+        }
+
+        for (SelectionKey key : selector.keys()) {
+            if (key.isValid() && key.attachment() instanceof Connection connection) {
+                updateInterest(key, connection);
+            }
+        }
+    }
+
+    /**
+     * Closes the connections which have received all their responses.
+     *
+     * @return true if no connection is left or the drain deadline has passed.
+     */
+    private boolean isDrained() {
+        int remaining = 0;
+
+        for (SelectionKey key : selector.keys()) {
+            if (!key.isValid() || !(key.attachment() instanceof Connection connection)) {
+                continue;
+            }
+
+            if (connection.isExecuting() || connection.hasPendingCommands() || connection.hasPendingOutput()) {
+                remaining++;
+            } else {
+                close(connection.channel());
+            }
+        }
+
+        if (remaining > 0 && now() >= drainDeadlineMillis) {
+            String logMsg = Reactor.class + " " + name + " drain deadline passed. " +
+                            "Closing " + remaining + " connections with unanswered commands.";
+            Dispatcher.logger().log(Level.WARN, LocalDateTime.now(), logMsg);
+
+            return true;
+        }
+
+        return remaining == 0;
+    }
+
+    private void handleAccept(SelectionKey key) throws IOException {
+        ServerSocketChannel sc = (ServerSocketChannel) key.channel();
+
+        SocketChannel accept = sc.accept();
+
+        if (accept == null) {
+            return;
+        }
+
+        if (!limiter.tryAcquire()) {
+            limiter.reject(accept, pool);
+            return;
+        }
+
+        connections.incrementAndGet();
+        registerConnection(accept);
+    }
+
+    private void registerConnection(SocketChannel channel) throws IOException {
+        channel.configureBlocking(config.isBlocking());
+
+        Connection connection = new Connection(channel, pool, MAX_COMMAND_LENGTH, now());
+        SelectionKey key = channel.register(selector, SelectionKey.OP_READ, connection);
+
+        scheduleTimeout(key, connection, Math.min(timeoutOf(connection), timeoutCheckMillis));
+
+        String address = channel.socket().getInetAddress().toString();
+        int port = channel.socket().getPort();
+
+        String connectMsg = String.format(
+                "Client with address %s:%d has opened a connection.",
+                address, port);
+
+        System.out.println(connectMsg);
+    }
+
+    private void handleRead(SelectionKey key) {
+        Connection connection = (Connection) key.attachment();
+        SocketChannel sc = connection.channel();
+
+        try {
+            int r = connection.read();
+
+            if (r > 0) {
+                connection.touch(now());
+            }
+
+            if (r < 0) {
+                String address = sc.socket().getInetAddress().toString();
+                int port = sc.socket().getPort();
+
+                String disconnectMsg = String.format(
+                        "Client with address %s:%d has closed the connection.",
+                        address, port);
+
+                System.out.println(disconnectMsg);
+                close(sc);
+                return;
+            }
+
+            executePending(key, connection);
+        } catch (IOException e) {
+            closeOnError(sc, e);
+        }
+    }
+
+    private void handleWrite(SelectionKey key) {
+        Connection connection = (Connection) key.attachment();
+
+        try {
+            connection.touch(now());
+            connection.flush();
+            executePending(key, connection);
+        } catch (IOException e) {
+            closeOnError(connection.channel(), e);
+        }
+    }
+
+    /**
+     * Clients may pipeline commands without waiting for the responses. The commands of a single
+     * connection are executed one at a time in the order they were received, so their responses
+     * are queued in request order.
+     */
+    private void executePending(SelectionKey key, Connection connection) throws IOException {
+        SocketChannel sc = connection.channel();
+
+        if (workers == null) {
+            while (connection.hasPendingCommands()) {
+                if (isOutboundFull(connection) && !connection.flush() && isOutboundFull(connection)) {
+                    break;
+                }
+
+                Request request = connection.nextCommand();
+                Command command = CommandParser.of(request.line(), sc);
+
+                connection.enqueue(encode(request, executeSafely(command), compressionThreshold(connection)));
+            }
+
+            connection.flush();
+            updateInterest(key, connection);
+            return;
+        }
+
+        if (connection.isExecuting() || !connection.hasPendingCommands() || isOutboundFull(connection)) {
+            updateInterest(key, connection);
+            return;
+        }
+
+        connection.setExecuting(true);
+        updateInterest(key, connection);
+
+        Request request = connection.nextCommand();
+        Command command = CommandParser.of(request.line(), sc);
+        int compressionThreshold = compressionThreshold(connection);
+
+        inFlight.begin();
+        try {
+            workers.execute(() -> executeSafelyAsync(command).whenComplete((text, e) -> {
+                try {
+                    respond(key, connection, request, text, compressionThreshold);
+                } finally {
+                    inFlight.end();
+                }
+            }));
+        } catch (RejectedExecutionException e) {
+            inFlight.end();
+
+            String logMsg = Reactor.class + " " + name + " command rejected: " + e.getMessage();
+            Dispatcher.logger().log(Level.WARN, LocalDateTime.now(), logMsg);
+
+            connection.enqueue(encode(request, INTERNAL_ERROR_MESSAGE, compressionThreshold));
+            connection.flush();
+            connection.setExecuting(false);
+            executePending(key, connection);
+        }
+    }
+
+    /**
+     * Hands the response of a command executed by a worker over to the reactor thread.
+     * A response which cannot be encoded is replaced by an internal error, and the connection
+     * always moves on to its next command, so it never stays stuck executing.
+     */
+    private void respond(SelectionKey key, Connection connection, Request request, String text,
+                         int compressionThreshold) {
+        List<ByteBuffer> response;
+        try {
+            response = encode(request, text != null ? text : INTERNAL_ERROR_MESSAGE, compressionThreshold);
+        } catch (RuntimeException e) {
+            String logMsg = Reactor.class + " " + e.getMessage();
+            Dispatcher.logger().log(Level.ERROR, LocalDateTime.now(), logMsg);
+
+            response = encode(request, INTERNAL_ERROR_MESSAGE, 0);
+        }
+
+        List<ByteBuffer> encoded = response;
+        SocketChannel sc = connection.channel();
+
+        tasks.add(() -> {
+            if (!key.isValid()) {
+                encoded.forEach(pool::release);
+                Dispatcher.authManager().evict(sc);
+                return;
+            }
+
+            try {
+                connection.enqueue(encoded);
+                connection.flush();
+            } catch (IOException e) {
+                closeOnError(sc, e);
+                return;
+            } finally {
+                connection.setExecuting(false);
+            }
+
+            try {
+                executePending(key, connection);
+            } catch (IOException e) {
+                closeOnError(sc, e);
+            }
+        });
+
+        selector.wakeup();
+    }
+
+    /**
+     * Reading pauses once too many commands are in flight or too many response bytes are queued,
+     * so a client which does not keep up is not read until it catches up.
+     * Write interest is kept only while there is output the socket has not accepted yet.
+     */
+    private void updateInterest(SelectionKey key, Connection connection) {
+        int ops = 0;
+
+        int maxInFlight = config.maxInFlightCommands();
+        if (!isDraining && (maxInFlight <= 0 || connection.inFlightCount() < maxInFlight)
+            && !isOutboundFull(connection)) {
+            ops |= SelectionKey.OP_READ;
+        }
+
+        if (connection.hasPendingOutput()) {
+            ops |= SelectionKey.OP_WRITE;
+        }
+
+        key.interestOps(ops);
+    }
+
+    /**
+     * Connections are checked lazily. Activity only records a timestamp and the connection's timeout
+     * is rescheduled when it fires, using the timeout of the connection's state at that moment.
+     * Long timeouts are checked in steps no longer than the shortest configured timeout,
+     * so a connection which logs in or out in the meantime is held to its new timeout in time.
+     */
+    private void expireIfIdle(SelectionKey key) {
+        if (!key.isValid()) {
+            return;
+        }
+
+        Connection connection = (Connection) key.attachment();
+
+        if (connection.isExecuting()) {
+            scheduleTimeout(key, connection, timeoutCheckMillis);
+            return;
+        }
+
+        long timeout = timeoutOf(connection);
+        long idleMillis = now() - connection.lastActivityMillis();
+
+        if (timeout > 0 && idleMillis >= timeout) {
+            SocketChannel sc = connection.channel();
+
+            String address = sc.socket().getInetAddress().toString();
+            int port = sc.socket().getPort();
+
+            String timeoutMsg = String.format(
+                    "Client with address %s:%d has been idle for %d ms. Closing the connection.",
+                    address, port, idleMillis);
+
+            System.out.println(timeoutMsg);
+            Dispatcher.logger().log(Level.INFO, LocalDateTime.now(), Reactor.class + " " + timeoutMsg);
+
+            close(sc);
+            return;
+        }
+
+        long remaining = timeout > 0 ? timeout - idleMillis : timeoutCheckMillis;
+        scheduleTimeout(key, connection, Math.min(remaining, timeoutCheckMillis));
+    }
+
+    private void scheduleTimeout(SelectionKey key, Connection connection, long delayMillis) {
+        if (timeoutCheckMillis <= 0) {
+            return;
+        }
+
+        long delay = delayMillis > 0 ? delayMillis : timeoutCheckMillis;
+        connection.setTimeout(timeouts.schedule(key, delay, now()));
+    }
+
+    private long timeoutOf(Connection connection) {
+        if (!connection.hasReceivedCommand()) {
+            return config.halfOpenTimeoutMillis();
+        }
+
+        if (Dispatcher.authManager().isLoggedIn(connection.channel())) {
+            return config.sessionTimeoutMillis();
+        }
+
+        return config.idleTimeoutMillis();
+    }
+
+    private static long shortestTimeout(ServerConfig config) {
+        return LongStream.of(config.idleTimeoutMillis(), config.halfOpenTimeoutMillis(),
+                        config.sessionTimeoutMillis())
+                .filter(timeout -> timeout > 0)
+                .min()
+                .orElse(0);
+    }
+
+    private static long now() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime());
+    }
+
+    private List<ByteBuffer> encode(Request request, String response, int compressionThreshold) {
+        return ResponseFrame.encode(request.sequence(), response, pool, compressionThreshold);
+    }
+
+    private int compressionThreshold(Connection connection) {
+        return connection.isDeflateEnabled() ? config.compressionThreshold() : 0;
+    }
+
+    /**
+     * @return true once the responses queued for the connection reach the outbound limit.
+     */
+    private boolean isOutboundFull(Connection connection) {
+        int maxOutbound = config.maxOutboundBytes();
+        return maxOutbound > 0 && connection.outboundBytes() >= maxOutbound;
+    }
+
+    private String executeSafely(Command command) {
+        try {
+            return command.execute();
+        } catch (RuntimeException e) {
+            String logMsg = Reactor.class + " " + e.getMessage();
+            Dispatcher.logger().log(Level.ERROR, LocalDateTime.now(), logMsg);
+            Dispatcher.logger().log(Level.ERROR, LocalDateTime.now(), Arrays.toString(e.getStackTrace()));
+
+            return INTERNAL_ERROR_MESSAGE;
+        }
+    }
+
+    /**
+     * A command waiting on I/O completes on another thread, so the worker is free meanwhile.
+     * A command failing either way is answered with an internal error.
+     */
+    private CompletableFuture<String> executeSafelyAsync(Command command) {
+        CompletableFuture<String> response;
+        try {
+            response = command.executeAsync();
+        } catch (RuntimeException e) {
+            response = CompletableFuture.failedFuture(e);
+        }
+
+        return response.exceptionally(e -> {
+            String logMsg = Reactor.class + " " + e.getMessage();
+            Dispatcher.logger().log(Level.ERROR, LocalDateTime.now(), logMsg);
+            Dispatcher.logger().log(Level.ERROR, LocalDateTime.now(), Arrays.toString(e.getStackTrace()));
+
+            return INTERNAL_ERROR_MESSAGE;
+        });
+    }
+
+    private void runTasks() {
+        Runnable task;
+        while ((task = tasks.poll()) != null) {
+            task.run();
+        }
+    }
+
+    private void closeAll() {
+        for (SelectionKey key : selector.keys()) {
+            if (key.channel() instanceof SocketChannel sc) {
+                close(sc);
+            }
+        }
+
+        try {
+            selector.close();
+        } catch (IOException e) {
+            String logMsg = Reactor.class + " " + name + " " + e.getMessage();
+            Dispatcher.logger().log(Level.WARN, LocalDateTime.now(), logMsg);
+        }
+    }
+
+    private void closeOnError(SocketChannel sc, IOException e) {
+        String logMsg = Reactor.class + " " + e.getMessage();
+        Dispatcher.logger().log(Level.WARN, LocalDateTime.now(), logMsg);
+
+        close(sc);
+    }
+
+    private void close(SocketChannel sc) {
+        if (!sc.isOpen()) {
+            return;
+        }
+
+        connections.decrementAndGet();
+        limiter.release();
+        Dispatcher.authManager().evict(sc);
+
+        SelectionKey key = sc.keyFor(selector);
+
+        try {
+            if (key != null && key.attachment() instanceof Connection connection) {
+                connection.close();
+            } else {
+                sc.close();
+            }
+        } catch (IOException e) {
+            String logMsg = Reactor.class + " " + e.getMessage();
+            Dispatcher.logger().log(Level.WARN, LocalDateTime.now(), logMsg);
+        }
+    }
+}
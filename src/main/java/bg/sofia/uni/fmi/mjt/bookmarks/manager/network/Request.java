@@ -0,0 +1,8 @@
+package bg.sofia.uni.fmi.mjt.bookmarks.manager.network;
+
+/**
+ * A command line received from a connection together with its position in the connection's request stream.
+ * The sequence is echoed in the response frame so pipelining clients can match responses to requests.
+ */
+public record Request(int sequence, String line) {
+}
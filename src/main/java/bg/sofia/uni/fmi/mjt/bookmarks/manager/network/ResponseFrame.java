@@ -0,0 +1,224 @@
+package bg.sofia.uni.fmi.mjt.bookmarks.manager.network;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.Deflater;
+
+/**
+ * Encodes responses into length-prefixed frames.
+ * A frame starts with a header holding the 4-byte big-endian sequence number of the request,
+ * the 4-byte big-endian payload length and a flags byte, followed by the UTF-8 encoded payload.
+ * If the {@link #FLAG_DEFLATE} flag is set, the payload is compressed with deflate (zlib format).
+ */
+public class ResponseFrame {
+    public static final int HEADER_SIZE = 2 * Integer.BYTES + Byte.BYTES;
+
+    public static final byte FLAG_DEFLATE = 1;
+
+    /**
+     * The line a client sends first on a new connection to ask for compressed responses.
+     * It is not a command and is not answered.
+     */
+    public static final String DEFLATE_CAPABILITY = "#capabilities deflate";
+
+    private static final int SEQUENCE_OFFSET = 0;
+    private static final int LENGTH_OFFSET = Integer.BYTES;
+    private static final int FLAGS_OFFSET = 2 * Integer.BYTES;
+
+    private static final int MAX_UTF8_CHAR_SIZE = 4;
+
+    /**
+     * The deflater of each thread which has compressed a response, reset after every response.
+     * Its native memory is released by {@link #releaseDeflater()} or, if the thread never calls it,
+     * once the deflater is garbage collected.
+     */
+    private static final ThreadLocal<Deflater> DEFLATER = new ThreadLocal<>();
+
+    private ResponseFrame() {
+    }
+
+    /**
+     * Encodes the response into a sequence of pooled chunks, the first of which starts with the frame header.
+     * The response is never copied into a single buffer.
+     *
+     * @param sequence the sequence number of the request this response answers.
+     * @param response the response to encode.
+     * @param pool     the pool the chunks are borrowed from.
+     * @return the frame as a list of buffers ready to be written.
+     */
+    public static List<ByteBuffer> encode(int sequence, String response, BufferPool pool) {
+        checkChunkSize(pool);
+
+        CharsetEncoder encoder = newEncoder();
+        CharBuffer in = CharBuffer.wrap(response);
+
+        List<ByteBuffer> frame = new ArrayList<>();
+
+        ByteBuffer first = pool.acquire();
+        first.position(HEADER_SIZE);
+
+        ByteBuffer chunk = first;
+        int length = 0;
+
+        while (true) {
+            int start = chunk.position();
+            CoderResult result = encoder.encode(in, chunk, true);
+
+            if (result.isUnderflow()) {
+                encoder.flush(chunk);
+            }
+
+            length += chunk.position() - start;
+
+            if (result.isUnderflow()) {
+                break;
+            }
+
+            frame.add(chunk.flip());
+            chunk = pool.acquire();
+        }
+
+        frame.add(chunk.flip());
+        writeHeader(first, sequence, length, (byte) 0);
+
+        return frame;
+    }
+
+    /**
+     * Encodes the response, compressing it if it is at least as long as the threshold.
+     * A response which does not get smaller when compressed is sent as it is.
+     *
+     * @param sequence             the sequence number of the request this response answers.
+     * @param response             the response to encode.
+     * @param pool                 the pool the chunks are borrowed from.
+     * @param compressionThreshold the response length in characters from which it is compressed,
+     *                             or 0 not to compress.
+     * @return the frame as a list of buffers ready to be written.
+     */
+    public static List<ByteBuffer> encode(int sequence, String response, BufferPool pool, int compressionThreshold) {
+        checkChunkSize(pool);
+
+        if (compressionThreshold > 0 && response.length() >= compressionThreshold) {
+            List<ByteBuffer> frame = deflate(sequence, response, pool);
+
+            if (frame != null) {
+                return frame;
+            }
+        }
+
+        return encode(sequence, response, pool);
+    }
+
+    /**
+     * Encodes the response one pooled chunk at a time and compresses each chunk straight into the frame,
+     * so the response is never copied into a single buffer.
+     *
+     * @return the frame or null if the compressed payload is not smaller than the original.
+     */
+    private static List<ByteBuffer> deflate(int sequence, String response, BufferPool pool) {
+        CharsetEncoder encoder = newEncoder();
+        CharBuffer in = CharBuffer.wrap(response);
+
+        Deflater deflater = deflater();
+        ByteBuffer input = pool.acquire();
+
+        List<ByteBuffer> frame = new ArrayList<>();
+
+        ByteBuffer first = pool.acquire();
+        first.position(HEADER_SIZE);
+
+        ByteBuffer chunk = first;
+        int payloadLength = 0;
+        int length = 0;
+        boolean isEncoded = false;
+
+        try {
+            while (!deflater.finished()) {
+                if (deflater.needsInput() && !isEncoded) {
+                    input.clear();
+
+                    if (encoder.encode(in, input, true).isUnderflow()) {
+                        encoder.flush(input);
+                        isEncoded = true;
+                    }
+
+                    payloadLength += input.flip().remaining();
+                    deflater.setInput(input);
+
+                    if (isEncoded) {
+                        deflater.finish();
+                    }
+                }
+
+                if (!chunk.hasRemaining()) {
+                    frame.add(chunk.flip());
+                    chunk = pool.acquire();
+                }
+
+                length += deflater.deflate(chunk);
+            }
+        } finally {
+            pool.release(input);
+            deflater.reset();
+        }
+
+        frame.add(chunk.flip());
+
+        if (length >= payloadLength) {
+            frame.forEach(pool::release);
+            return null;
+        }
+
+        writeHeader(first, sequence, length, FLAG_DEFLATE);
+
+        return frame;
+    }
+
+    /**
+     * Releases the deflater of the calling thread, if it has one. Threads which encode responses
+     * call it before they exit.
+     */
+    public static void releaseDeflater() {
+        Deflater deflater = DEFLATER.get();
+
+        if (deflater != null) {
+            deflater.end();
+            DEFLATER.remove();
+        }
+    }
+
+    private static Deflater deflater() {
+        Deflater deflater = DEFLATER.get();
+
+        if (deflater == null) {
+            deflater = new Deflater();
+            DEFLATER.set(deflater);
+        }
+
+        return deflater;
+    }
+
+    private static CharsetEncoder newEncoder() {
+        return StandardCharsets.UTF_8.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    }
+
+    private static void checkChunkSize(BufferPool pool) {
+        if (pool.chunkSize() < HEADER_SIZE + MAX_UTF8_CHAR_SIZE) {
+            throw new IllegalArgumentException("The chunk size is too small to hold a frame header and a character.");
+        }
+    }
+
+    private static void writeHeader(ByteBuffer first, int sequence, int length, byte flags) {
+        first.putInt(SEQUENCE_OFFSET, sequence);
+        first.putInt(LENGTH_OFFSET, length);
+        first.put(FLAGS_OFFSET, flags);
+    }
+}
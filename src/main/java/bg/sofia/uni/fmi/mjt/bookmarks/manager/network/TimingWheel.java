@@ -0,0 +1,202 @@
+package bg.sofia.uni.fmi.mjt.bookmarks.manager.network;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * A hashed timing wheel. Scheduling and cancelling a timeout cost O(1).
+ * Timeouts are bucketed by the tick they are due in and expire with a precision of one tick.
+ * The wheel has no thread of its own. It is advanced by its owner and is not thread-safe.
+ *
+ * @param <T> the type of the items timing out.
+ */
+public class TimingWheel<T> {
+    private final long tickMillis;
+    private final long startMillis;
+    private final int mask;
+    private final Timeout<T>[] buckets;
+
+    private long currentTick = 0;
+    private int size = 0;
+
+    /**
+     * @param tickMillis  the duration of a single tick.
+     * @param wheelSize   the number of buckets, rounded up to a power of two.
+     * @param startMillis the current time.
+     * @throws IllegalArgumentException if the tick duration or the wheel size is not positive.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public TimingWheel(long tickMillis, int wheelSize, long startMillis) {
+        if (tickMillis <= 0 || wheelSize <= 0) {
+            throw new IllegalArgumentException("The tick duration and the wheel size must be positive.");
+        }
+
+        int capacity = Integer.highestOneBit(wheelSize);
+        if (capacity < wheelSize) {
+            capacity <<= 1;
+        }
+
+        this.tickMillis = tickMillis;
+        this.startMillis = startMillis;
+        this.mask = capacity - 1;
+        this.buckets = new Timeout[capacity];
+    }
+
+    /**
+     * Schedules an item to expire after the given delay.
+     *
+     * @param item        the item to expire.
+     * @param delayMillis the delay after which the item expires.
+     * @param nowMillis   the current time.
+     * @return the handle cancelling the timeout.
+     */
+    public Timeout<T> schedule(T item, long delayMillis, long nowMillis) {
+        long deadlineMillis = nowMillis + Math.max(delayMillis, 0) - startMillis;
+        long deadlineTick = Math.max((deadlineMillis + tickMillis - 1) / tickMillis, currentTick + 1);
+
+        Timeout<T> timeout = new Timeout<>(this, item, deadlineTick);
+        link(timeout);
+
+        return timeout;
+    }
+
+    /**
+     * Moves the wheel to the current time and expires every item which is due.
+     * The expired items are handed to the consumer after the wheel is moved,
+     * so the consumer may schedule them again.
+     *
+     * @param nowMillis the current time.
+     * @param onExpire  consumes the expired items.
+     */
+    public void advance(long nowMillis, Consumer<T> onExpire) {
+        long targetTick = (nowMillis - startMillis) / tickMillis;
+
+        if (targetTick <= currentTick) {
+            return;
+        }
+
+        List<T> expired = new ArrayList<>();
+
+        if (size > 0) {
+            long ticks = Math.min(targetTick - currentTick, buckets.length);
+
+            for (long tick = currentTick + 1; tick <= currentTick + ticks; tick++) {
+                Timeout<T> timeout = buckets[(int) (tick & mask)];
+
+                while (timeout != null) {
+                    Timeout<T> next = timeout.next;
+
+                    if (timeout.deadlineTick <= targetTick) {
+                        unlink(timeout);
+                        expired.add(timeout.item);
+                    }
+
+                    timeout = next;
+                }
+            }
+        }
+
+        currentTick = targetTick;
+        expired.forEach(onExpire);
+    }
+
+    /**
+     * @return the duration of a single tick.
+     */
+    public long tickMillis() {
+        return tickMillis;
+    }
+
+    /**
+     * The owner may wait this long before advancing the wheel without delaying any timeout further.
+     *
+     * @param nowMillis the current time.
+     * @return the time left until the next tick, at least 1 millisecond.
+     */
+    public long millisUntilNextTick(long nowMillis) {
+        return tickMillis - Math.floorMod(nowMillis - startMillis, tickMillis);
+    }
+
+    /**
+     * @return the number of scheduled timeouts.
+     */
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    private void link(Timeout<T> timeout) {
+        int index = (int) (timeout.deadlineTick & mask);
+
+        timeout.next = buckets[index];
+        if (buckets[index] != null) {
+            buckets[index].prev = timeout;
+        }
+
+        buckets[index] = timeout;
+        timeout.scheduled = true;
+        size++;
+    }
+
+    private void unlink(Timeout<T> timeout) {
+        int index = (int) (timeout.deadlineTick & mask);
+
+        if (timeout.prev != null) {
+            timeout.prev.next = timeout.next;
+        } else {
+            buckets[index] = timeout.next;
+        }
+
+        if (timeout.next != null) {
+            timeout.next.prev = timeout.prev;
+        }
+
+        timeout.prev = null;
+        timeout.next = null;
+        timeout.scheduled = false;
+        size--;
+    }
+
+    /**
+     * A scheduled timeout, linked into the bucket of the tick it is due in.
+     *
+     * @param <T> the type of the item timing out.
+     */
+    public static final class Timeout<T> {
+        private final TimingWheel<T> wheel;
+        private final T item;
+        private final long deadlineTick;
+
+        private Timeout<T> prev;
+        private Timeout<T> next;
+        private boolean scheduled;
+
+        private Timeout(TimingWheel<T> wheel, T item, long deadlineTick) {
+            this.wheel = wheel;
+            this.item = item;
+            this.deadlineTick = deadlineTick;
+        }
+
+        /**
+         * Removes the timeout from the wheel.
+         *
+         * @return true if the timeout was cancelled, false if it has already expired or been cancelled.
+         */
+        public boolean cancel() {
+            if (!scheduled) {
+                return false;
+            }
+
+            wheel.unlink(this);
+            return true;
+        }
+
+        public boolean isScheduled() {
+            return scheduled;
+        }
+    }
+}
@@ -0,0 +1,233 @@
+package bg.sofia.uni.fmi.mjt.bookmarks.manager.repository;
+
+import bg.sofia.uni.fmi.mjt.bookmarks.manager.entity.Bookmark;
+import bg.sofia.uni.fmi.mjt.bookmarks.manager.entity.LinkStatus;
+
+import java.net.MalformedURLException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.time.Instant;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * The canonical bookmarks shared by all the users, keyed by normalised url.
+ * Every user bookmarking a url shares the title and the tags of the same {@link Bookmark}, which is counted
+ * once per user. The url itself stays as each user spelled it.
+ * A canonical bookmark is dropped when the last user referring to it removes it.
+ * The catalog also keeps the last known health of each url, recorded by the background link check.
+ */
+public class BookmarkCatalog {
+    private static final int HTTP_PORT = 80;
+    private static final int HTTPS_PORT = 443;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final NavigableSet<String> urls = new ConcurrentSkipListSet<>();
+
+    /**
+     * @param url the url of a bookmark.
+     * @return a bookmark of the url, as spelled, sharing the title and the tags of the canonical one,
+     * if any user has bookmarked the url.
+     * @throws IllegalArgumentException if the url has been bookmarked but is not a valid url.
+     */
+    public Optional<Bookmark> find(String url) {
+        Entry entry = lookup(url);
+
+        if (entry == null) {
+            return Optional.empty();
+        }
+
+        try {
+            return Optional.of(entry.bookmark.withUrl(new URL(url)));
+        } catch (MalformedURLException e) {
+            throw new IllegalArgumentException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * @param url the url of a bookmark.
+     * @return the time the canonical bookmark of the url was added to the catalog, if there is one.
+     */
+    public Optional<Instant> fetchedAt(String url) {
+        Entry entry = lookup(url);
+
+        return entry == null ? Optional.empty() : Optional.of(entry.fetchedAt);
+    }
+
+    /**
+     * Takes a reference to the canonical bookmark of the bookmark's url.
+     * The bookmark becomes the canonical one if its url has not been bookmarked yet.
+     *
+     * @param bookmark the bookmark.
+     * @return a bookmark of the given bookmark's url sharing the title and the tags of the canonical one,
+     * to refer to instead of the given one.
+     */
+    Bookmark retain(Bookmark bookmark) {
+        Entry entry = entries.compute(normalize(bookmark.url().toString()), (url, current) -> {
+            Entry result = current;
+
+            if (result == null) {
+                result = new Entry(bookmark, Instant.now());
+                urls.add(url);
+            }
+
+            result.references++;
+
+            return result;
+        });
+
+        return entry.bookmark.withUrl(bookmark.url());
+    }
+
+    /**
+     * Gives a reference to the canonical bookmark of the bookmark's url back.
+     *
+     * @param bookmark the bookmark.
+     */
+    void release(Bookmark bookmark) {
+        entries.computeIfPresent(normalize(bookmark.url().toString()), (url, current) -> {
+            if (--current.references > 0) {
+                return current;
+            }
+
+            urls.remove(url);
+            return null;
+        });
+    }
+
+    /**
+     * @param url the url of a bookmark.
+     * @return the number of users referring to the canonical bookmark of the url.
+     */
+    public int references(String url) {
+        Entry entry = lookup(url);
+
+        return entry == null ? 0 : entry.references;
+    }
+
+    /**
+     * Walks the normalised urls in order, a page at a time.
+     *
+     * @param cursor the last url of the previous page or null to start from the first url.
+     * @param limit  the maximum number of urls.
+     * @return the normalised urls following the cursor.
+     */
+    public List<String> urlsAfter(String cursor, int limit) {
+        NavigableSet<String> tail = cursor == null ? urls : urls.tailSet(cursor, false);
+
+        return tail.stream().limit(limit).toList();
+    }
+
+    /**
+     * Records the health of a url. Nothing is recorded if no user has bookmarked the url.
+     *
+     * @param url       the url of a bookmark.
+     * @param status    the outcome of checking the url.
+     * @param checkedAt the time the url was checked.
+     */
+    public void record(String url, LinkStatus status, Instant checkedAt) {
+        Entry entry = lookup(url);
+
+        if (entry != null) {
+            entry.health = new Health(status, checkedAt);
+        }
+    }
+
+    /**
+     * @param url the url of a bookmark.
+     * @return the last recorded outcome of checking the url, if it has been checked.
+     */
+    public Optional<LinkStatus> status(String url) {
+        Health health = healthOf(url);
+
+        return health == null ? Optional.empty() : Optional.of(health.status);
+    }
+
+    /**
+     * @param url the url of a bookmark.
+     * @return the last time the url was checked, if it has been checked.
+     */
+    public Optional<Instant> checkedAt(String url) {
+        Health health = healthOf(url);
+
+        return health == null ? Optional.empty() : Optional.of(health.checkedAt);
+    }
+
+    private Health healthOf(String url) {
+        Entry entry = lookup(url);
+
+        return entry == null ? null : entry.health;
+    }
+
+    /**
+     * @return the number of canonical bookmarks.
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    private Entry lookup(String url) {
+        return url == null ? null : entries.get(normalize(url));
+    }
+
+    /**
+     * Lower-cases the scheme and the host, drops the default port and the fragment
+     * and turns an empty path into "/". A url which is not absolute is kept as it is.
+     */
+    static String normalize(String url) {
+        URI uri;
+        try {
+            uri = new URI(url).normalize();
+        } catch (URISyntaxException e) {
+            return url;
+        }
+
+        if (uri.getScheme() == null || uri.getHost() == null) {
+            return url;
+        }
+
+        String scheme = uri.getScheme().toLowerCase(Locale.ROOT);
+        int port = uri.getPort();
+
+        boolean defaultPort = port == HTTP_PORT && scheme.equals("http") ||
+                              port == HTTPS_PORT && scheme.equals("https");
+
+        StringBuilder normalized = new StringBuilder(scheme)
+                .append("://")
+                .append(uri.getHost().toLowerCase(Locale.ROOT));
+
+        if (port != -1 && !defaultPort) {
+            normalized.append(':').append(port);
+        }
+
+        String path = uri.getRawPath();
+        normalized.append(path == null || path.isEmpty() ? "/" : path);
+
+        if (uri.getRawQuery() != null) {
+            normalized.append('?').append(uri.getRawQuery());
+        }
+
+        return normalized.toString();
+    }
+
+    private record Health(LinkStatus status, Instant checkedAt) {
+    }
+
+    private static final class Entry {
+        private final Bookmark bookmark;
+        private final Instant fetchedAt;
+        private int references = 0;
+        private volatile Health health;
+
+        private Entry(Bookmark bookmark, Instant fetchedAt) {
+            this.bookmark = bookmark;
+            this.fetchedAt = fetchedAt;
+        }
+    }
+}
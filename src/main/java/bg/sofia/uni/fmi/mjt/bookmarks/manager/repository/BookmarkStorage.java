@@ -4,6 +4,7 @@ import bg.sofia.uni.fmi.mjt.bookmarks.manager.exception.BookmarkStorageException
 import bg.sofia.uni.fmi.mjt.bookmarks.manager.logger.Level;
 import bg.sofia.uni.fmi.mjt.bookmarks.manager.service.Dispatcher;
 import com.google.gson.Gson;
+import com.google.gson.JsonObject;
 import com.google.gson.reflect.TypeToken;
 
 import java.io.BufferedReader;
@@ -15,16 +16,13 @@ import java.io.Writer;
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.Collection;
-import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class BookmarkStorage implements FileRepository<String, Bookmarks> {
-    private Map<String, Bookmarks> bookmarkStorage;
-
-    public BookmarkStorage() {
-        this.bookmarkStorage = new HashMap<>();
-    }
+    private final BookmarkCatalog catalog = new BookmarkCatalog();
+    private final Map<String, Bookmarks> bookmarkStorage = new ConcurrentHashMap<>();
 
     @Override
     public void store(String file) {
@@ -43,7 +41,14 @@ public class BookmarkStorage implements FileRepository<String, Bookmarks> {
     public void store(Writer writer) {
         try (var bw = new BufferedWriter(writer)) {
             Gson gson = new Gson();
-            bw.write(gson.toJson(bookmarkStorage, Map.class));
+            JsonObject snapshot = new JsonObject();
+
+            for (var entry : bookmarkStorage.entrySet()) {
+                Bookmarks bookmarks = entry.getValue();
+                snapshot.add(entry.getKey(), bookmarks.read(() -> gson.toJsonTree(bookmarks)));
+            }
+
+            bw.write(gson.toJson(snapshot));
         } catch (Exception e) {
             String logMsg = BookmarkStorage.class + " " + e.getMessage();
             Dispatcher.logger().log(Level.ERROR, LocalDateTime.now(), logMsg);
@@ -70,8 +75,18 @@ public class BookmarkStorage implements FileRepository<String, Bookmarks> {
     public void load(Reader reader) {
         try (var bw = new BufferedReader(reader)) {
             Gson gson = new Gson();
-            this.bookmarkStorage = gson.fromJson(bw, new TypeToken<Map<String, Bookmarks>>() {
+            Map<String, Bookmarks> loaded = gson.fromJson(bw, new TypeToken<Map<String, Bookmarks>>() {
             }.getType());
+
+            if (loaded == null) {
+                loaded = Map.of();
+            }
+
+            loaded.values().forEach(bookmarks -> bookmarks.attach(catalog));
+
+            bookmarkStorage.values().forEach(Bookmarks::detach);
+            bookmarkStorage.clear();
+            bookmarkStorage.putAll(loaded);
         } catch (Exception e) {
             String logMsg = BookmarkStorage.class + " " + e.getMessage();
             Dispatcher.logger().log(Level.ERROR, LocalDateTime.now(), logMsg);
@@ -83,25 +98,23 @@ public class BookmarkStorage implements FileRepository<String, Bookmarks> {
 
     @Override
     public void add(String key, Bookmarks value) {
-        bookmarkStorage.putIfAbsent(key, value);
+        if (bookmarkStorage.putIfAbsent(key, value) == null) {
+            value.attach(catalog);
+        }
     }
 
     @Override
     public void remove(String key) {
-        if (!bookmarkStorage.containsKey(key)) {
-            return;
-        }
+        Bookmarks removed = bookmarkStorage.remove(key);
 
-        bookmarkStorage.remove(key);
+        if (removed != null) {
+            removed.detach();
+        }
     }
 
     @Override
     public Optional<Bookmarks> get(String key) {
-        if (bookmarkStorage.containsKey(key)) {
-            return Optional.of(bookmarkStorage.get(key));
-        }
-
-        return Optional.empty();
+        return Optional.ofNullable(bookmarkStorage.get(key));
     }
 
     @Override
@@ -114,9 +127,22 @@ public class BookmarkStorage implements FileRepository<String, Bookmarks> {
         return bookmarkStorage.values();
     }
 
+    /**
+     * @return the canonical bookmarks shared by the bookmarks of all the users.
+     */
+    public BookmarkCatalog catalog() {
+        return catalog;
+    }
+
+    /**
+     * @return the bookmarks of the user, created atomically if the user has none yet.
+     */
     public Bookmarks hook(String caller) {
-        add(caller, new Bookmarks());
+        return bookmarkStorage.computeIfAbsent(caller, key -> {
+            Bookmarks bookmarks = new Bookmarks();
+            bookmarks.attach(catalog);
 
-        return bookmarkStorage.get(caller);
+            return bookmarks;
+        });
     }
 }
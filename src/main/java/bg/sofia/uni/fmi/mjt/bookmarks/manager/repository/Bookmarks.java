@@ -1,91 +1,500 @@
 package bg.sofia.uni.fmi.mjt.bookmarks.manager.repository;
 
 import bg.sofia.uni.fmi.mjt.bookmarks.manager.entity.Bookmark;
+import bg.sofia.uni.fmi.mjt.bookmarks.manager.utils.query.TagQuery;
 
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
+/**
+ * The bookmarks of a single user. Every method is guarded by the user's own read-write lock,
+ * so the commands of different users never wait for each other and the searches of a user run in parallel.
+ * The collections returned are copies, safe to iterate while the bookmarks change.
+ */
 public class Bookmarks {
+    private static final int TRIGRAM_LENGTH = 3;
+
     private final Map<String, Set<Bookmark>> groups = new HashMap<>();
     private final Map<String, Bookmark> urlMap = new HashMap<>();
 
-    public void newGroup(String groupName) {
-        groups.putIfAbsent(groupName, new HashSet<>());
+    /*
+     * The search indexes are not stored with the bookmarks. They are built on the first search
+     * and kept up to date by every change after it.
+     */
+    private transient PostingsIndex tagIndex;
+    private transient PostingsIndex titleIndex;
+    private transient RankedIndex rankedIndex;
+
+    /*
+     * The groups every url is in, built from the groups on the first change.
+     */
+    private transient Map<String, Set<String>> urlGroups;
+
+    private transient BookmarkCatalog catalog;
+
+    private final transient ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * @return true if the group is created, false if it already exists.
+     */
+    public boolean newGroup(String groupName) {
+        return write(() -> groups.putIfAbsent(groupName, new HashSet<>()) == null);
     }
 
     public boolean contains(String groupName) {
-        return groups.containsKey(groupName);
+        return read(() -> groups.containsKey(groupName));
     }
 
+    /**
+     * @return a copy of the group or null if it does not exist.
+     */
     public Collection<Bookmark> getGroup(String groupName) {
-        return groups.get(groupName);
+        return read(() -> groups.containsKey(groupName) ? List.copyOf(groups.get(groupName)) : null);
     }
 
     public Collection<String> getNames() {
-        return groups.keySet();
+        return read(() -> List.copyOf(groups.keySet()));
     }
 
-    public void addBookmark(String groupName, Bookmark bookmark) {
-        groups.get(groupName).add(bookmark);
-        urlMap.put(bookmark.url().toString(), bookmark);
+    /**
+     * Adds the bookmark to the group. A url already bookmarked in another group keeps its bookmark,
+     * otherwise the title and the tags of the canonical bookmark of the url are shared, if the bookmarks
+     * are in a catalog. The url is kept as the user spelled it.
+     *
+     * @return true if the bookmark is added, false if the group already has it.
+     */
+    public boolean addBookmark(String groupName, Bookmark bookmark) {
+        return write(() -> {
+            if (groups.get(groupName).contains(bookmark)) {
+                return false;
+            }
+
+            String url = bookmark.url().toString();
+            Bookmark shared = urlMap.get(url);
+
+            if (shared == null) {
+                shared = catalog == null ? bookmark : catalog.retain(bookmark);
+
+                urlMap.put(url, shared);
+                index(url, shared);
+            }
+
+            groups.get(groupName).add(shared);
+            urlGroups().computeIfAbsent(url, u -> new HashSet<>()).add(groupName);
+
+            return true;
+        });
     }
 
     public boolean containsBookmark(String groupName, Bookmark bookmark) {
-        return groups.get(groupName).contains(bookmark);
+        return read(() -> groups.get(groupName).contains(bookmark));
     }
 
+    /**
+     * Removes the bookmark from the group. The bookmark is kept as long as another group has it.
+     *
+     * @throws IllegalStateException if the group does not have a bookmark with the url.
+     */
     public void removeBookmark(String groupName, String url) {
-        if (!urlMap.containsKey(url) || !groups.containsKey(groupName)) {
-            throw new IllegalStateException();
-        }
+        lock.writeLock().lock();
+        try {
+            Set<String> memberships = urlGroups().get(url);
 
-        Bookmark toRemove = urlMap.get(url);
-        groups.get(groupName).remove(toRemove);
-        urlMap.remove(url);
+            if (!urlMap.containsKey(url) || memberships == null || !memberships.remove(groupName)) {
+                throw new IllegalStateException();
+            }
+
+            groups.get(groupName).remove(urlMap.get(url));
+
+            if (memberships.isEmpty()) {
+                urlGroups.remove(url);
+                forget(url);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
     }
 
+    /**
+     * Removes the bookmark from every group which has it.
+     *
+     * @throws IllegalStateException if there is no bookmark with the url.
+     */
     public void removeBookmark(String url) {
-        if (!urlMap.containsKey(url)) {
-            throw new IllegalStateException();
+        lock.writeLock().lock();
+        try {
+            if (!urlMap.containsKey(url)) {
+                throw new IllegalStateException();
+            }
+
+            Bookmark toRemove = urlMap.get(url);
+
+            for (String groupName : urlGroups().getOrDefault(url, Set.of())) {
+                groups.get(groupName).remove(toRemove);
+            }
+
+            urlGroups.remove(url);
+            forget(url);
+        } finally {
+            lock.writeLock().unlock();
         }
+    }
+
+    /**
+     * Refers to the canonical bookmarks of the catalog instead of the own ones.
+     *
+     * @param catalog the catalog shared with the bookmarks of the other users.
+     */
+    void attach(BookmarkCatalog catalog) {
+        lock.writeLock().lock();
+        try {
+            this.catalog = catalog;
+
+            for (var entry : urlMap.entrySet()) {
+                entry.setValue(catalog.retain(entry.getValue()));
+            }
 
-        Bookmark toRemove = urlMap.get(url);
+            for (Set<Bookmark> group : groups.values()) {
+                List<Bookmark> members = new ArrayList<>(group);
+                group.clear();
 
-        for (Set<Bookmark> bookmarks : groups.values()) {
-            bookmarks.remove(toRemove);
+                for (Bookmark member : members) {
+                    group.add(urlMap.getOrDefault(member.url().toString(), member));
+                }
+            }
+
+            tagIndex = null;
+        } finally {
+            lock.writeLock().unlock();
         }
+    }
+
+    /**
+     * Gives every reference to the canonical bookmarks of the catalog back.
+     */
+    void detach() {
+        lock.writeLock().lock();
+        try {
+            if (catalog == null) {
+                return;
+            }
 
-        urlMap.remove(url);
+            urlMap.values().forEach(catalog::release);
+            catalog = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
     }
 
     public Set<String> collectUrls() {
-        return urlMap.keySet();
+        return read(() -> Set.copyOf(urlMap.keySet()));
     }
 
+    /**
+     * Collects the bookmarks whose title contains the given one, ignoring the case.
+     * Only the bookmarks having the rarest trigram of the searched title are checked for the whole of it.
+     * Titles shorter than a trigram are matched by a scan.
+     *
+     * @param title the part of the title to search for.
+     * @return the matching bookmarks.
+     */
     public List<Bookmark> collectByTitle(String title) {
-        return urlMap.values().stream()
-                .filter(bookmark -> bookmark.title().contains(title))
-                .toList();
+        String query = normalize(title);
+
+        if (query.length() < TRIGRAM_LENGTH) {
+            return read(() -> urlMap.values().stream()
+                    .filter(bookmark -> normalize(bookmark.title()).contains(query))
+                    .toList());
+        }
+
+        return search(() -> collectByTrigrams(query));
     }
 
-    public List<Bookmark> collectByTags(List<String> tags) {
-        List<Bookmark> result = new ArrayList<>();
+    private List<Bookmark> collectByTrigrams(String query) {
+        Set<String> candidates = null;
+        for (int i = 0; i + TRIGRAM_LENGTH <= query.length(); i++) {
+            Set<String> postings = titleIndex.get(query.substring(i, i + TRIGRAM_LENGTH));
 
-        for (var entry : urlMap.entrySet()) {
-            Bookmark bookmark = entry.getValue();
+            if (candidates == null || postings.size() < candidates.size()) {
+                candidates = postings;
+            }
+
+            if (candidates.isEmpty()) {
+                return List.of();
+            }
+        }
+
+        List<Bookmark> result = new ArrayList<>();
 
-            boolean matchesTag = bookmark.tags().stream().anyMatch(tags::contains);
+        for (String url : candidates) {
+            Bookmark bookmark = urlMap.get(url);
 
-            if (matchesTag) {
+            if (normalize(bookmark.title()).contains(query)) {
                 result.add(bookmark);
             }
         }
 
         return result;
     }
+
+    /**
+     * Collects the bookmarks having any of the tags. Only the postings of the given tags are visited,
+     * so the cost depends on the number of matches rather than on the number of bookmarks.
+     *
+     * @param tags the tags to search for.
+     * @return every matching bookmark once.
+     */
+    public List<Bookmark> collectByTags(List<String> tags) {
+        return search(() -> {
+            Set<String> matched = new HashSet<>();
+            List<Bookmark> result = new ArrayList<>();
+
+            for (String tag : tags) {
+                for (String url : tagIndex.get(tag)) {
+                    if (matched.add(url)) {
+                        result.add(urlMap.get(url));
+                    }
+                }
+            }
+
+            return result;
+        });
+    }
+
+    /**
+     * Collects the bookmarks matching a boolean tag query. The operands of every AND are planned
+     * smallest first: only the postings of the most selective operand are walked
+     * and each of its urls is probed against the rest, so no other operand is materialized.
+     *
+     * @param query the tag query.
+     * @return the matching bookmarks.
+     */
+    public List<Bookmark> collectByQuery(TagQuery query) {
+        return search(() -> {
+            List<Bookmark> result = new ArrayList<>();
+
+            for (String url : evaluate(query)) {
+                result.add(urlMap.get(url));
+            }
+
+            return result;
+        });
+    }
+
+    /**
+     * Collects the bookmarks best matching the terms by their titles and tags, ranked with BM25.
+     *
+     * @param terms the terms to search for.
+     * @param limit the maximum number of bookmarks to collect.
+     * @return the best matching bookmarks, the best first.
+     */
+    public List<Bookmark> collectRanked(Collection<String> terms, int limit) {
+        return search(() -> rankedIndex.top(terms, limit, urlMap::get).stream()
+                .map(urlMap::get)
+                .toList());
+    }
+
+    /**
+     * Runs an action under the read lock, holding it for the whole action.
+     */
+    <T> T read(Supplier<T> action) {
+        lock.readLock().lock();
+        try {
+            return action.get();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private <T> T write(Supplier<T> action) {
+        lock.writeLock().lock();
+        try {
+            return action.get();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Runs a search under the read lock. The indexes are built under the write lock first,
+     * if this is the first search.
+     */
+    private <T> T search(Supplier<T> action) {
+        if (tagIndex == null) {
+            write(() -> {
+                ensureIndexed();
+                return null;
+            });
+        }
+
+        return read(action);
+    }
+
+    private Collection<String> evaluate(TagQuery query) {
+        if (query instanceof TagQuery.Tag tag) {
+            return tagIndex.get(tag.name());
+        }
+
+        if (query instanceof TagQuery.Or or) {
+            Set<String> union = new HashSet<>();
+
+            for (TagQuery operand : or.operands()) {
+                union.addAll(evaluate(operand));
+            }
+
+            return union;
+        }
+
+        if (query instanceof TagQuery.And and) {
+            TagQuery driver = null;
+
+            for (TagQuery operand : and.operands()) {
+                if (!(operand instanceof TagQuery.Not) &&
+                    (driver == null || estimate(operand) < estimate(driver))) {
+                    driver = operand;
+                }
+            }
+
+            Collection<String> candidates = driver == null ? urlMap.keySet() : evaluate(driver);
+            TagQuery probed = driver;
+
+            return candidates.stream()
+                    .filter(url -> and.operands().stream()
+                            .allMatch(operand -> operand == probed || matches(operand, url)))
+                    .toList();
+        }
+
+        return urlMap.keySet().stream()
+                .filter(url -> matches(query, url))
+                .toList();
+    }
+
+    private boolean matches(TagQuery query, String url) {
+        if (query instanceof TagQuery.Tag tag) {
+            return tagIndex.get(tag.name()).contains(url);
+        }
+
+        if (query instanceof TagQuery.Or or) {
+            return or.operands().stream().anyMatch(operand -> matches(operand, url));
+        }
+
+        if (query instanceof TagQuery.And and) {
+            return and.operands().stream().allMatch(operand -> matches(operand, url));
+        }
+
+        return !matches(((TagQuery.Not) query).operand(), url);
+    }
+
+    /**
+     * @return an upper bound of the number of bookmarks matching the query.
+     */
+    private int estimate(TagQuery query) {
+        if (query instanceof TagQuery.Tag tag) {
+            return tagIndex.get(tag.name()).size();
+        }
+
+        if (query instanceof TagQuery.Or or) {
+            int sum = 0;
+
+            for (TagQuery operand : or.operands()) {
+                sum += estimate(operand);
+            }
+
+            return Math.min(sum, urlMap.size());
+        }
+
+        if (query instanceof TagQuery.And and) {
+            int min = urlMap.size();
+
+            for (TagQuery operand : and.operands()) {
+                min = Math.min(min, estimate(operand));
+            }
+
+            return min;
+        }
+
+        return urlMap.size();
+    }
+
+    private Map<String, Set<String>> urlGroups() {
+        if (urlGroups == null) {
+            urlGroups = new HashMap<>();
+
+            for (var group : groups.entrySet()) {
+                for (Bookmark bookmark : group.getValue()) {
+                    urlGroups.computeIfAbsent(bookmark.url().toString(), u -> new HashSet<>()).add(group.getKey());
+                }
+            }
+        }
+
+        return urlGroups;
+    }
+
+    private void forget(String url) {
+        Bookmark removed = urlMap.remove(url);
+
+        unindex(url, removed);
+
+        if (catalog != null && removed != null) {
+            catalog.release(removed);
+        }
+    }
+
+    private void ensureIndexed() {
+        if (tagIndex != null) {
+            return;
+        }
+
+        tagIndex = new PostingsIndex();
+        titleIndex = new PostingsIndex();
+        rankedIndex = new RankedIndex();
+
+        for (var entry : urlMap.entrySet()) {
+            index(entry.getKey(), entry.getValue());
+        }
+    }
+
+    private void index(String url, Bookmark bookmark) {
+        if (tagIndex == null || bookmark == null) {
+            return;
+        }
+
+        bookmark.tags().forEach(tag -> tagIndex.add(tag, url));
+
+        forEachTrigram(bookmark.title(), trigram -> titleIndex.add(trigram, url));
+        rankedIndex.add(url, bookmark);
+    }
+
+    private void unindex(String url, Bookmark bookmark) {
+        if (tagIndex == null || bookmark == null) {
+            return;
+        }
+
+        bookmark.tags().forEach(tag -> tagIndex.remove(tag, url));
+
+        forEachTrigram(bookmark.title(), trigram -> titleIndex.remove(trigram, url));
+        rankedIndex.remove(url, bookmark);
+    }
+
+    private static void forEachTrigram(String title, Consumer<String> action) {
+        String normalized = normalize(title);
+
+        for (int i = 0; i + TRIGRAM_LENGTH <= normalized.length(); i++) {
+            action.accept(normalized.substring(i, i + TRIGRAM_LENGTH));
+        }
+    }
+
+    private static String normalize(String title) {
+        return title == null ? "" : title.toLowerCase(Locale.ROOT);
+    }
 }
@@ -0,0 +1,32 @@
+package bg.sofia.uni.fmi.mjt.bookmarks.manager.repository;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Maps every term to the urls of the bookmarks it occurs in.
+ */
+class PostingsIndex {
+    private final Map<String, Set<String>> postings = new HashMap<>();
+
+    void add(String term, String url) {
+        postings.computeIfAbsent(term, t -> new HashSet<>()).add(url);
+    }
+
+    void remove(String term, String url) {
+        Set<String> urls = postings.get(term);
+
+        if (urls != null && urls.remove(url) && urls.isEmpty()) {
+            postings.remove(term);
+        }
+    }
+
+    /**
+     * @return the urls the term occurs in, a view which must not be modified.
+     */
+    Set<String> get(String term) {
+        return postings.getOrDefault(term, Set.of());
+    }
+}
@@ -0,0 +1,145 @@
+package bg.sofia.uni.fmi.mjt.bookmarks.manager.repository;
+
+import bg.sofia.uni.fmi.mjt.bookmarks.manager.entity.Bookmark;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Ranks bookmarks with Okapi BM25. The terms of a bookmark are the words of its title and its tags.
+ */
+class RankedIndex {
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    private static final Comparator<Scored> BY_SCORE = Comparator.comparingDouble(Scored::score)
+            .thenComparing(Scored::url, Comparator.reverseOrder());
+
+    private final PostingsIndex postings = new PostingsIndex();
+    private int documents = 0;
+    private long totalLength = 0;
+
+    void add(String url, Bookmark bookmark) {
+        List<String> terms = terms(bookmark);
+
+        new LinkedHashSet<>(terms).forEach(term -> postings.add(term, url));
+        documents++;
+        totalLength += terms.size();
+    }
+
+    void remove(String url, Bookmark bookmark) {
+        List<String> terms = terms(bookmark);
+
+        terms.forEach(term -> postings.remove(term, url));
+        documents--;
+        totalLength -= terms.size();
+    }
+
+    /**
+     * Scores the bookmarks having any of the query terms and keeps the best of them in a heap
+     * bounded by the limit, so the matches are never sorted as a whole.
+     *
+     * @param query    the query terms.
+     * @param limit    the maximum number of results.
+     * @param bookmark looks the bookmark of a url up.
+     * @return the urls of the best matches, the best first.
+     */
+    List<String> top(Collection<String> query, int limit, Function<String, Bookmark> bookmark) {
+        Set<String> queryTerms = new LinkedHashSet<>();
+        query.forEach(part -> queryTerms.addAll(words(part)));
+
+        Set<String> candidates = new LinkedHashSet<>();
+        queryTerms.forEach(term -> candidates.addAll(postings.get(term)));
+
+        if (limit <= 0 || candidates.isEmpty()) {
+            return List.of();
+        }
+
+        double averageLength = (double) totalLength / documents;
+        PriorityQueue<Scored> best = new PriorityQueue<>(limit, BY_SCORE);
+
+        for (String url : candidates) {
+            List<String> terms = terms(bookmark.apply(url));
+            double score = 0;
+
+            for (String term : queryTerms) {
+                int frequency = Collections.frequency(terms, term);
+
+                if (frequency > 0) {
+                    double norm = K1 * (1 - B + B * terms.size() / averageLength);
+                    score += idf(postings.get(term).size()) * frequency * (K1 + 1) / (frequency + norm);
+                }
+            }
+
+            Scored scored = new Scored(url, score);
+
+            if (best.size() < limit) {
+                best.add(scored);
+            } else if (BY_SCORE.compare(scored, best.peek()) > 0) {
+                best.poll();
+                best.add(scored);
+            }
+        }
+
+        List<String> result = new ArrayList<>(best.size());
+        while (!best.isEmpty()) {
+            result.add(best.poll().url());
+        }
+
+        Collections.reverse(result);
+
+        return result;
+    }
+
+    private double idf(int documentFrequency) {
+        return Math.log(1 + (documents - documentFrequency + 0.5) / (documentFrequency + 0.5));
+    }
+
+    private static List<String> terms(Bookmark bookmark) {
+        List<String> terms = words(bookmark.title());
+
+        bookmark.tags().forEach(tag -> terms.add(tag.toLowerCase(Locale.ROOT)));
+
+        return terms;
+    }
+
+    /**
+     * Splits the text into its lower-cased words, the runs of letters and digits.
+     */
+    static List<String> words(String text) {
+        List<String> words = new ArrayList<>();
+
+        if (text == null) {
+            return words;
+        }
+
+        int start = -1;
+        for (int i = 0; i <= text.length(); ) {
+            int codePoint = i < text.length() ? text.codePointAt(i) : ' ';
+
+            if (Character.isLetterOrDigit(codePoint)) {
+                if (start < 0) {
+                    start = i;
+                }
+            } else if (start >= 0) {
+                words.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+                start = -1;
+            }
+
+            i += i < text.length() ? Character.charCount(codePoint) : 1;
+        }
+
+        return words;
+    }
+
+    private record Scored(String url, double score) {
+    }
+}
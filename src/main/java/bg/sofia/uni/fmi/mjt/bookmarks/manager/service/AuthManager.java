@@ -14,9 +14,9 @@ import java.security.NoSuchAlgorithmException;
 import java.security.spec.InvalidKeySpecException;
 import java.time.LocalDateTime;
 import java.util.Arrays;
-import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class AuthManager implements AuthService {
     private static final String INVALID_CREDENTIALS_MESSAGE = "Invalid username or password.";
@@ -29,7 +29,7 @@ public class AuthManager implements AuthService {
 
     public AuthManager(Repository<String, User> userRepository) {
         this.userRepository = userRepository;
-        this.logged = new HashMap<>();
+        this.logged = new ConcurrentHashMap<>();
     }
 
     @Override
@@ -174,8 +174,19 @@ public class AuthManager implements AuthService {
         );
     }
 
-    private boolean isLoggedIn(SocketChannel session) {
-        return logged.containsKey(session);
+    @Override
+    public boolean isLoggedIn(SocketChannel session) {
+        return session != null && logged.containsKey(session);
+    }
+
+    @Override
+    public boolean evict(SocketChannel session) {
+        return session != null && logged.remove(session) != null;
+    }
+
+    @Override
+    public int sessionCount() {
+        return logged.size();
     }
 
     private boolean isRegistered(String username) {
@@ -52,4 +52,26 @@ public interface AuthService {
      */
     Response<String> logout(SocketChannel session);
 
+    /**
+     * Checks if a {@link SocketChannel} client's session identifier figures in the login list.
+     *
+     * @param session client's identifier.
+     * @return true if a user is logged in with this session, false otherwise.
+     */
+    boolean isLoggedIn(SocketChannel session);
+
+    /**
+     * Removes a {@link SocketChannel} client's session identifier from the login list
+     * without a response to the client. Used when the connection is closed or has timed out.
+     *
+     * @param session client's identifier.
+     * @return true if a user was logged in with this session, false otherwise.
+     */
+    boolean evict(SocketChannel session);
+
+    /**
+     * @return the number of {@link SocketChannel} client's session identifiers in the login list.
+     */
+    int sessionCount();
+
 }
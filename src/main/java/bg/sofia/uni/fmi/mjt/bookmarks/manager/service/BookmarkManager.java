@@ -1,66 +1,85 @@
 package bg.sofia.uni.fmi.mjt.bookmarks.manager.service;
 
+import bg.sofia.uni.fmi.mjt.bookmarks.manager.entity.BatchOperation;
 import bg.sofia.uni.fmi.mjt.bookmarks.manager.entity.Bookmark;
+import bg.sofia.uni.fmi.mjt.bookmarks.manager.entity.LinkStatus;
 import bg.sofia.uni.fmi.mjt.bookmarks.manager.entity.Response;
 import bg.sofia.uni.fmi.mjt.bookmarks.manager.entity.Status;
-import bg.sofia.uni.fmi.mjt.bookmarks.manager.exception.StopWordsException;
+import bg.sofia.uni.fmi.mjt.bookmarks.manager.exception.TagQueryException;
 import bg.sofia.uni.fmi.mjt.bookmarks.manager.exception.UrlShortenerException;
 import bg.sofia.uni.fmi.mjt.bookmarks.manager.external.HtmlParser;
 import bg.sofia.uni.fmi.mjt.bookmarks.manager.external.UrlShortenerService;
 import bg.sofia.uni.fmi.mjt.bookmarks.manager.logger.Level;
 import bg.sofia.uni.fmi.mjt.bookmarks.manager.repository.BookmarkStorage;
 import bg.sofia.uni.fmi.mjt.bookmarks.manager.repository.Bookmarks;
+import bg.sofia.uni.fmi.mjt.bookmarks.manager.utils.KeywordExtractor;
 import bg.sofia.uni.fmi.mjt.bookmarks.manager.utils.Pair;
 import bg.sofia.uni.fmi.mjt.bookmarks.manager.utils.StopWords;
 import bg.sofia.uni.fmi.mjt.bookmarks.manager.utils.chrome.BookmarkCategories;
 import bg.sofia.uni.fmi.mjt.bookmarks.manager.utils.chrome.ChromeBookmark;
 import bg.sofia.uni.fmi.mjt.bookmarks.manager.utils.chrome.ChromeImport;
 import bg.sofia.uni.fmi.mjt.bookmarks.manager.utils.cli.CliPrompts;
+import bg.sofia.uni.fmi.mjt.bookmarks.manager.utils.query.TagQuery;
+import bg.sofia.uni.fmi.mjt.bookmarks.manager.utils.query.TagQueryParser;
 import com.google.gson.Gson;
 import org.jsoup.nodes.Document;
 
 import java.io.IOException;
-import java.net.HttpURLConnection;
-import java.net.URI;
+import java.net.MalformedURLException;
 import java.net.URL;
-import java.net.http.HttpClient;
-import java.net.http.HttpRequest;
-import java.net.http.HttpResponse;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Instant;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
-import java.util.HashMap;
+import java.util.Collections;
 import java.util.List;
-import java.util.Map;
-import java.util.function.Predicate;
-
-import static bg.sofia.uni.fmi.mjt.bookmarks.manager.utils.StopWords.STOPWORDS_BG_PATH;
-import static bg.sofia.uni.fmi.mjt.bookmarks.manager.utils.StopWords.STOPWORDS_EN_PATH;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.StringJoiner;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 
 public class BookmarkManager implements BookmarkService {
-    private static final String WHITESPACE_PUNCTUATION_REGEX = "[\\p{IsPunctuation}\\p{IsWhite_Space}]+";
-
     private static final String INTERNAL_ERROR_MESSAGE = "An internal problem occurred. " +
                                                          "Please try again or contact an administrator";
     private static final int MAX_KEYWORDS = 20;
     private static final int MIN_KEYWORD_LENGTH = 3;
+    private static final int MAX_RANKED_RESULTS = 20;
+
+    private static final String INVALID_URL_MESSAGE = "The provided bookmark's url is invalid.";
+    private static final String SHORTENER_ERROR_MESSAGE = "A problem occurred with the URL shortener service.";
 
     private final UrlShortenerService shortener;
     private final BookmarkStorage storage;
     private final HtmlParser htmlParser;
-    private final HttpClient httpClient;
+    private final LinkChecker linkChecker;
+    private final Executor fetchExecutor;
 
     public BookmarkManager(BookmarkStorage storage,
                            UrlShortenerService shortener,
                            HtmlParser htmlParser,
-                           HttpClient httpClient) {
+                           LinkChecker linkChecker) {
+        this(storage, shortener, htmlParser, linkChecker, Runnable::run);
+    }
+
+    /**
+     * @param linkChecker   checks the urls of a cleanup the background link check has no status of.
+     * @param fetchExecutor runs the page fetches of a batch concurrently.
+     */
+    public BookmarkManager(BookmarkStorage storage,
+                           UrlShortenerService shortener,
+                           HtmlParser htmlParser,
+                           LinkChecker linkChecker,
+                           Executor fetchExecutor) {
         this.storage = storage;
         this.shortener = shortener;
         this.htmlParser = htmlParser;
-        this.httpClient = httpClient;
+        this.linkChecker = linkChecker;
+        this.fetchExecutor = fetchExecutor;
     }
 
     @Override
@@ -72,17 +91,15 @@ public class BookmarkManager implements BookmarkService {
             return new Response<>(Status.ERROR, INTERNAL_ERROR_MESSAGE);
         }
 
-        Bookmarks target = storage.get(caller).orElse(storage.hook(caller));
+        Bookmarks target = storage.hook(caller);
 
-        if (target.contains(groupName)) {
+        if (!target.newGroup(groupName)) {
             return new Response<>(
                     Status.ERROR,
                     String.format("Group with name %s already exists.", groupName)
             );
         }
 
-        target.newGroup(groupName);
-
         return new Response<>(
                 Status.OK,
                 String.format("Group with name %s is created.", groupName)
@@ -99,55 +116,94 @@ public class BookmarkManager implements BookmarkService {
 
         Bookmark bookmark;
         try {
-            bookmark = generateBookmark(url);
+            bookmark = findOrGenerateBookmark(url);
         } catch (IllegalArgumentException | IOException e) {
             String logMsg = BookmarkManager.class + " " + e.getMessage();
             Dispatcher.logger().log(Level.INFO, LocalDateTime.now(), logMsg);
             Dispatcher.logger().log(Level.INFO, LocalDateTime.now(), Arrays.toString(e.getStackTrace()));
 
-            return new Response<>(Status.ERROR, "The provided bookmark's url is invalid.");
+            return new Response<>(Status.ERROR, INVALID_URL_MESSAGE);
         }
 
-        Bookmarks target = storage.get(caller).orElse(storage.hook(caller));
+        return addBookmark(groupName, bookmark, caller);
+    }
 
-        if (target.containsBookmark(groupName, bookmark)) {
-            return new Response<>(
-                    Status.ERROR,
-                    String.format("%s already exists in %s.", bookmark.url(), groupName)
-            );
+    @Override
+    public Response<String> addToShorten(String groupName, String url, String caller) {
+        Pair<Boolean, String> valid = addToValidation(groupName, url, caller);
+
+        if (!valid.first()) {
+            return new Response<>(Status.ERROR, valid.second());
         }
 
-        target.addBookmark(groupName, bookmark);
+        Optional<String> shortenUrl = shorten(url);
 
-        return new Response<>(
-                Status.OK,
-                String.format("%s added to %s.", bookmark.url(), groupName)
-        );
+        if (shortenUrl.isEmpty()) {
+            return new Response<>(Status.ERROR, SHORTENER_ERROR_MESSAGE);
+        }
+
+        return addTo(groupName, shortenUrl.get(), caller);
     }
 
     @Override
-    public Response<String> addToShorten(String groupName, String url, String caller) {
+    public CompletableFuture<Response<String>> addToAsync(String groupName, String url, String caller) {
         Pair<Boolean, String> valid = addToValidation(groupName, url, caller);
 
         if (!valid.first()) {
-            return new Response<>(Status.ERROR, valid.second());
+            return CompletableFuture.completedFuture(new Response<>(Status.ERROR, valid.second()));
         }
 
-        String shortenUrl;
+        Optional<Bookmark> canonical;
         try {
-            shortenUrl = shortener.shorten(url);
-        } catch (UrlShortenerException e) {
+            canonical = storage.catalog().find(url);
+        } catch (IllegalArgumentException e) {
             String logMsg = BookmarkManager.class + " " + e.getMessage();
-            Dispatcher.logger().log(Level.ERROR, LocalDateTime.now(), logMsg);
-            Dispatcher.logger().log(Level.ERROR, LocalDateTime.now(), Arrays.toString(e.getStackTrace()));
+            Dispatcher.logger().log(Level.INFO, LocalDateTime.now(), logMsg);
 
-            return new Response<>(
-                    Status.ERROR,
-                    "A problem occurred with the URL shortener service."
-            );
+            return CompletableFuture.completedFuture(new Response<>(Status.ERROR, INVALID_URL_MESSAGE));
+        }
+
+        if (canonical.isPresent()) {
+            return CompletableFuture.completedFuture(addBookmark(groupName, canonical.get(), caller));
+        }
+
+        return htmlParser.parseAsync(url)
+                .thenApply(doc -> {
+                    try {
+                        return bookmarkOf(doc, url);
+                    } catch (MalformedURLException e) {
+                        throw new CompletionException(e);
+                    }
+                })
+                .handle((bookmark, e) -> {
+                    if (e != null) {
+                        Throwable cause = e instanceof CompletionException && e.getCause() != null ?
+                                e.getCause() : e;
+
+                        String logMsg = BookmarkManager.class + " " + cause.getMessage();
+                        Dispatcher.logger().log(Level.INFO, LocalDateTime.now(), logMsg);
+                        Dispatcher.logger().log(Level.INFO, LocalDateTime.now(),
+                                Arrays.toString(cause.getStackTrace()));
+
+                        return new Response<>(Status.ERROR, INVALID_URL_MESSAGE);
+                    }
+
+                    return addBookmark(groupName, bookmark, caller);
+                });
+    }
+
+    @Override
+    public CompletableFuture<Response<String>> addToShortenAsync(String groupName, String url, String caller) {
+        Pair<Boolean, String> valid = addToValidation(groupName, url, caller);
+
+        if (!valid.first()) {
+            return CompletableFuture.completedFuture(new Response<>(Status.ERROR, valid.second()));
         }
 
-        return addTo(groupName, shortenUrl, caller);
+        return CompletableFuture.supplyAsync(() -> shorten(url), fetchExecutor)
+                .thenCompose(shortenUrl -> shortenUrl.isEmpty() ?
+                        CompletableFuture.completedFuture(new Response<>(Status.ERROR, SHORTENER_ERROR_MESSAGE)) :
+                        addToAsync(groupName, shortenUrl.get(), caller));
     }
 
     @Override
@@ -159,7 +215,7 @@ public class BookmarkManager implements BookmarkService {
             return new Response<>(Status.ERROR, INTERNAL_ERROR_MESSAGE);
         }
 
-        Bookmarks target = storage.get(caller).orElse(storage.hook(caller));
+        Bookmarks target = storage.hook(caller);
 
         if (!target.contains(groupName)) {
             return new Response<>(
@@ -200,7 +256,7 @@ public class BookmarkManager implements BookmarkService {
             return new Response<>(Status.ERROR, "Title is empty.");
         }
 
-        Bookmarks target = storage.get(caller).orElse(storage.hook(caller));
+        Bookmarks target = storage.hook(caller);
 
         List<Bookmark> found = target.collectByTitle(title);
 
@@ -220,7 +276,7 @@ public class BookmarkManager implements BookmarkService {
             return new Response<>(Status.ERROR, INTERNAL_ERROR_MESSAGE);
         }
 
-        Bookmarks target = storage.get(caller).orElse(storage.hook(caller));
+        Bookmarks target = storage.hook(caller);
 
         List<Bookmark> found = target.collectByTags(tags);
 
@@ -230,9 +286,54 @@ public class BookmarkManager implements BookmarkService {
         return new Response<>(Status.OK, result);
     }
 
+    @Override
+    public Response<String> searchByQuery(String query, String caller) {
+        if (checkNulls(query, caller)) {
+            String logMsg = BookmarkManager.class + " searchByQuery(...): null argument.";
+            Dispatcher.logger().log(Level.ERROR, LocalDateTime.now(), logMsg);
+
+            return new Response<>(Status.ERROR, INTERNAL_ERROR_MESSAGE);
+        }
+
+        TagQuery parsed;
+        try {
+            parsed = TagQueryParser.parse(query);
+        } catch (TagQueryException e) {
+            return new Response<>(Status.ERROR, "Invalid query. " + e.getMessage());
+        }
+
+        Bookmarks target = storage.hook(caller);
+
+        List<Bookmark> found = target.collectByQuery(parsed);
+
+        String result = CliPrompts.header() +
+                        listPretty(query, found);
+
+        return new Response<>(Status.OK, result);
+    }
+
+    @Override
+    public Response<String> searchRanked(List<String> terms, String caller) {
+        if (checkNulls(terms, caller)) {
+            String logMsg = BookmarkManager.class + " searchRanked(...): null argument.";
+            Dispatcher.logger().log(Level.ERROR, LocalDateTime.now(), logMsg);
+
+            return new Response<>(Status.ERROR, INTERNAL_ERROR_MESSAGE);
+        }
+
+        Bookmarks target = storage.hook(caller);
+
+        List<Bookmark> found = target.collectRanked(terms, MAX_RANKED_RESULTS);
+
+        String result = CliPrompts.header() +
+                        listPretty(terms.toString(), found);
+
+        return new Response<>(Status.OK, result);
+    }
+
     @Override
     public Response<String> list(String caller) {
-        Bookmarks target = storage.get(caller).orElse(storage.hook(caller));
+        Bookmarks target = storage.hook(caller);
 
         String listAll = listAllPretty(target);
 
@@ -241,7 +342,7 @@ public class BookmarkManager implements BookmarkService {
 
     @Override
     public Response<String> list(String groupName, String caller) {
-        Bookmarks target = storage.get(caller).orElse(storage.hook(caller));
+        Bookmarks target = storage.hook(caller);
 
         if (!target.contains(groupName)) {
             return new Response<>(
@@ -253,41 +354,68 @@ public class BookmarkManager implements BookmarkService {
         return new Response<>(Status.OK, listPretty(groupName, target.getGroup(groupName)));
     }
 
+    /**
+     * Removes the bookmarks whose pages no longer exist. The urls the background link check has already
+     * validated are not fetched again. Only the ones it has not reached yet or could not check are,
+     * and their statuses are recorded for the background check and the next cleanups.
+     */
     @Override
     public Response<String> cleanup(String caller) {
-        Bookmarks target = storage.get(caller).orElse(storage.hook(caller));
+        Bookmarks target = storage.hook(caller);
 
-        Collection<String> urls = target.collectUrls();
+        List<LinkStatus> statuses = new ArrayList<>();
+        List<String> unknown = new ArrayList<>();
 
-        int removed = 0;
-        for (String url : urls) {
-            HttpRequest request = HttpRequest.newBuilder().uri(URI.create(url)).build();
-
-            HttpResponse<String> response;
-            try {
-                response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
-            } catch (IOException | InterruptedException e) {
-                String logMsg = BookmarkManager.class + " " + e.getMessage();
-                Dispatcher.logger().log(Level.WARN, LocalDateTime.now(), logMsg);
-                Dispatcher.logger().log(Level.WARN, LocalDateTime.now(), Arrays.toString(e.getStackTrace()));
-
-                return new Response<>(Status.ERROR, "Could not remove a bookmark with url " + url);
+        for (String url : target.collectUrls()) {
+            Optional<LinkStatus> known = storage.catalog().status(url).filter(status -> !status.isFailed());
+
+            if (known.isPresent()) {
+                statuses.add(LinkStatus.of(url, known.get().statusCode()));
+            } else {
+                unknown.add(url);
             }
+        }
+
+        Instant checkedAt = Instant.now();
 
-            if (response.statusCode() == HttpURLConnection.HTTP_NOT_FOUND) {
-                synchronized (this) {
-                    target.removeBookmark(url);
+        for (LinkStatus status : linkChecker.check(unknown)) {
+            storage.catalog().record(status.url(), status, checkedAt);
+            statuses.add(status);
+        }
+
+        int removed = 0;
+        List<LinkStatus> failed = new ArrayList<>();
+
+        for (LinkStatus status : statuses) {
+            if (status.isFailed()) {
+                failed.add(status);
+            } else if (status.isBroken()) {
+                try {
+                    target.removeBookmark(status.url());
                     ++removed;
+                } catch (IllegalStateException e) {
+                    // Removed by another command of the user meanwhile.
                 }
             }
         }
 
-        return new Response<>(Status.OK, "Cleanup completed. Totally removed invalid bookmarks: " + removed);
+        String completed = "Cleanup completed. Totally removed invalid bookmarks: " + removed;
+
+        if (failed.isEmpty()) {
+            return new Response<>(Status.OK, completed);
+        }
+
+        StringJoiner errors = new StringJoiner(System.lineSeparator());
+        errors.add(completed);
+        errors.add("Could not check bookmarks: " + failed.size());
+        failed.forEach(status -> errors.add(status.url() + " " + status.error()));
+
+        return new Response<>(Status.ERROR, errors.toString());
     }
 
     @Override
     public Response<String> importFromChrome(String caller) {
-        Bookmarks target = storage.get(caller).orElse(storage.hook(caller));
+        Bookmarks target = storage.hook(caller);
 
         String osName = System.getProperty("os.name");
         String osUser = System.getProperty("user.name");
@@ -326,6 +454,150 @@ public class BookmarkManager implements BookmarkService {
         return new Response<>(Status.OK, "Chrome import completed. Bookmarks imported to group Chrome.");
     }
 
+    @Override
+    public Response<String> batch(List<BatchOperation> operations, String caller) {
+        return batchAsync(operations, caller).join();
+    }
+
+    /**
+     * Applies the operations in order on behalf of a single caller. The groups are created and
+     * the bookmarks being added are validated first, since only creating a group affects whether
+     * a later operation is valid. Then the pages of the valid ones are fetched concurrently,
+     * so the batch waits for the slowest page instead of the sum of them, and the rest of
+     * the operations are applied in order once they are fetched. A failed operation does not stop
+     * the ones after it.
+     *
+     * @return the status of every operation on the first line, followed by the message
+     * of every failed operation, prefixed with its 1-based position.
+     */
+    @Override
+    public CompletableFuture<Response<String>> batchAsync(List<BatchOperation> operations, String caller) {
+        if (checkNulls(operations, caller)) {
+            String logMsg = BookmarkManager.class + " batch(...): null argument.";
+            Dispatcher.logger().log(Level.ERROR, LocalDateTime.now(), logMsg);
+
+            return CompletableFuture.completedFuture(new Response<>(Status.ERROR, INTERNAL_ERROR_MESSAGE));
+        }
+
+        List<Response<String>> results = new ArrayList<>(Collections.nCopies(operations.size(), null));
+        List<CompletableFuture<Pair<Bookmark, String>>> fetches =
+                new ArrayList<>(Collections.nCopies(operations.size(), null));
+
+        for (int i = 0; i < operations.size(); i++) {
+            BatchOperation operation = operations.get(i);
+
+            switch (operation.kind()) {
+                case NEW_GROUP -> results.set(i, createGroup(operation.groupName(), caller));
+                case ADD_TO -> {
+                    Pair<Boolean, String> valid = addToValidation(operation.groupName(), operation.url(), caller);
+
+                    if (valid.first()) {
+                        fetches.set(i, CompletableFuture.supplyAsync(
+                                () -> fetchBookmark(operation.url(), operation.shorten()), fetchExecutor));
+                    } else {
+                        results.set(i, new Response<>(Status.ERROR, valid.second()));
+                    }
+                }
+                case INVALID -> results.set(i, new Response<>(Status.ERROR, "Invalid batch command."));
+                default -> {
+                    // a removal depends on the bookmarks added before it, so it is applied in order
+                }
+            }
+        }
+
+        CompletableFuture<?>[] pending = fetches.stream()
+                .filter(Objects::nonNull)
+                .toArray(CompletableFuture[]::new);
+
+        return CompletableFuture.allOf(pending)
+                .thenApply(fetched -> applyBatch(operations, results, fetches, caller));
+    }
+
+    private Response<String> applyBatch(List<BatchOperation> operations,
+                                        List<Response<String>> results,
+                                        List<CompletableFuture<Pair<Bookmark, String>>> fetches,
+                                        String caller) {
+        StringJoiner statuses = new StringJoiner(" ");
+        StringBuilder errors = new StringBuilder();
+        Status status = Status.OK;
+
+        for (int i = 0; i < operations.size(); i++) {
+            BatchOperation operation = operations.get(i);
+
+            Response<String> result = results.get(i);
+
+            if (result == null) {
+                result = operation.kind() == BatchOperation.Kind.ADD_TO ?
+                        batchAddTo(operation, fetches.get(i).join(), caller) :
+                        removeFrom(operation.groupName(), operation.url(), caller);
+            }
+
+            statuses.add(result.status().toString());
+
+            if (result.status() == Status.ERROR) {
+                status = Status.ERROR;
+                errors.append(System.lineSeparator())
+                        .append('#').append(i + 1).append(' ')
+                        .append(result.response());
+            }
+        }
+
+        return new Response<>(status, statuses + errors.toString());
+    }
+
+    private Response<String> batchAddTo(BatchOperation operation, Pair<Bookmark, String> fetched, String caller) {
+        if (fetched.first() == null) {
+            return new Response<>(Status.ERROR, fetched.second());
+        }
+
+        return addBookmark(operation.groupName(), fetched.first(), caller);
+    }
+
+    /**
+     * Shortens the url if requested and generates its bookmark.
+     *
+     * @return the bookmark, or null and the message of the failure.
+     */
+    private Pair<Bookmark, String> fetchBookmark(String url, boolean shorten) {
+        String target = url;
+
+        if (shorten) {
+            Optional<String> shortenUrl = shorten(url);
+
+            if (shortenUrl.isEmpty()) {
+                return new Pair<>(null, SHORTENER_ERROR_MESSAGE);
+            }
+
+            target = shortenUrl.get();
+        }
+
+        try {
+            return new Pair<>(findOrGenerateBookmark(target), null);
+        } catch (IllegalArgumentException | IOException e) {
+            String logMsg = BookmarkManager.class + " " + e.getMessage();
+            Dispatcher.logger().log(Level.INFO, LocalDateTime.now(), logMsg);
+            Dispatcher.logger().log(Level.INFO, LocalDateTime.now(), Arrays.toString(e.getStackTrace()));
+
+            return new Pair<>(null, INVALID_URL_MESSAGE);
+        }
+    }
+
+    private Response<String> addBookmark(String groupName, Bookmark bookmark, String caller) {
+        Bookmarks target = storage.hook(caller);
+
+        if (!target.addBookmark(groupName, bookmark)) {
+            return new Response<>(
+                    Status.ERROR,
+                    String.format("%s already exists in %s.", bookmark.url(), groupName)
+            );
+        }
+
+        return new Response<>(
+                Status.OK,
+                String.format("%s added to %s.", bookmark.url(), groupName)
+        );
+    }
+
     private String listAllPretty(Bookmarks bookmarks) {
         StringBuilder builder = new StringBuilder(CliPrompts.header());
 
@@ -362,7 +634,7 @@ public class BookmarkManager implements BookmarkService {
             return new Pair<>(false, INTERNAL_ERROR_MESSAGE);
         }
 
-        Bookmarks target = storage.get(caller).orElse(storage.hook(caller));
+        Bookmarks target = storage.hook(caller);
 
         if (!target.contains(groupName)) {
             return new Pair<>(
@@ -374,38 +646,42 @@ public class BookmarkManager implements BookmarkService {
         return new Pair<>(true, "VALID");
     }
 
-    public Bookmark generateBookmark(String url) throws IOException {
-        Document doc = htmlParser.parse(url);
+    /**
+     * Looks the url up in the bookmarks of all the users first, so a page already bookmarked
+     * by anyone is not fetched again.
+     */
+    private Bookmark findOrGenerateBookmark(String url) throws IOException {
+        Optional<Bookmark> canonical = storage.catalog().find(url);
 
-        StopWords stopWords = new StopWords();
+        if (canonical.isPresent()) {
+            return canonical.get();
+        }
+
+        return generateBookmark(url);
+    }
 
+    /**
+     * @return the shortened url or empty if the shortener failed.
+     */
+    private Optional<String> shorten(String url) {
         try {
-            stopWords.load(STOPWORDS_EN_PATH);
-            stopWords.load(STOPWORDS_BG_PATH);
-        } catch (StopWordsException e) {
+            return Optional.of(shortener.shorten(url));
+        } catch (UrlShortenerException e) {
             String logMsg = BookmarkManager.class + " " + e.getMessage();
-            Dispatcher.logger().log(Level.WARN, LocalDateTime.now(), logMsg);
-            Dispatcher.logger().log(Level.WARN, LocalDateTime.now(), Arrays.toString(e.getStackTrace()));
-        }
-
-        Map<String, Integer> wordOccurrences = new HashMap<>();
+            Dispatcher.logger().log(Level.ERROR, LocalDateTime.now(), logMsg);
+            Dispatcher.logger().log(Level.ERROR, LocalDateTime.now(), Arrays.toString(e.getStackTrace()));
 
-        Arrays.stream(doc.body().text().split(WHITESPACE_PUNCTUATION_REGEX))
-                .map(String::strip)
-                .map(String::toLowerCase)
-                .filter(word -> word.length() > MIN_KEYWORD_LENGTH)
-                .filter(Predicate.not(stopWords::isStopWord))
-                .forEach(word -> {
-                    wordOccurrences.merge(word, 1, Integer::sum);
-                });
+            return Optional.empty();
+        }
+    }
 
-        List<Map.Entry<String, Integer>> entryList = new ArrayList<>(wordOccurrences.entrySet());
+    public Bookmark generateBookmark(String url) throws IOException {
+        return bookmarkOf(htmlParser.parse(url), url);
+    }
 
-        List<String> tags = entryList.stream()
-                .sorted(Map.Entry.<String, Integer>comparingByValue().reversed())
-                .map(Map.Entry::getKey)
-                .limit(MAX_KEYWORDS)
-                .toList();
+    private Bookmark bookmarkOf(Document doc, String url) throws MalformedURLException {
+        List<String> tags = KeywordExtractor.keywords(doc.body(), StopWords.defaults(),
+                MIN_KEYWORD_LENGTH, MAX_KEYWORDS);
 
         return new Bookmark(doc.title(), new URL(url), tags);
     }
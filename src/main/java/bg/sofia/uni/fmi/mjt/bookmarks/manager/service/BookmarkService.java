@@ -1,8 +1,10 @@
 package bg.sofia.uni.fmi.mjt.bookmarks.manager.service;
 
+import bg.sofia.uni.fmi.mjt.bookmarks.manager.entity.BatchOperation;
 import bg.sofia.uni.fmi.mjt.bookmarks.manager.entity.Response;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 public interface BookmarkService {
 
@@ -10,12 +12,25 @@ public interface BookmarkService {
 
     Response<String> addToShorten(String groupName, String url, String caller);
 
+    /**
+     * Adds the bookmark without blocking while its page is fetched.
+     *
+     * @return the response, completed once the page is fetched and parsed.
+     */
+    CompletableFuture<Response<String>> addToAsync(String groupName, String url, String caller);
+
+    CompletableFuture<Response<String>> addToShortenAsync(String groupName, String url, String caller);
+
     Response<String> removeFrom(String groupName, String url, String caller);
 
     Response<String> searchByTitle(String title, String caller);
 
     Response<String> searchByTags(List<String> tags, String caller);
 
+    Response<String> searchByQuery(String query, String caller);
+
+    Response<String> searchRanked(List<String> terms, String caller);
+
     Response<String> createGroup(String groupName, String caller);
 
     Response<String> list(String caller);
@@ -25,4 +40,13 @@ public interface BookmarkService {
     Response<String> cleanup(String caller);
 
     Response<String> importFromChrome(String caller);
+
+    Response<String> batch(List<BatchOperation> operations, String caller);
+
+    /**
+     * Applies the operations without blocking while the pages of the bookmarks being added are fetched.
+     *
+     * @return the response, completed once every operation is applied.
+     */
+    CompletableFuture<Response<String>> batchAsync(List<BatchOperation> operations, String caller);
 }
@@ -11,20 +11,49 @@ import bg.sofia.uni.fmi.mjt.bookmarks.manager.repository.BookmarkStorage;
 import bg.sofia.uni.fmi.mjt.bookmarks.manager.repository.UserStorage;
 
 import java.net.http.HttpClient;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 public class Dispatcher {
     private static final String LOGS_DIR = "logs";
+    private static final String LINK_HEALTH_PATH = "src/main/resources/link_health.jsonl";
+    private static final int FETCH_THREADS = 16;
     private static final Logger LOGGER = new DefaultLogger(new LoggerOptions(Server.class, LOGS_DIR));
 
     private static final BookmarkStorage BOOKMARK_STORAGE = new BookmarkStorage();
     private static final UrlShortenerService SHORTENER_SERVICE = new BiltyShortener();
-    private static final HtmlParser HTML_PARSER = new HtmlParser();
-    private static final HttpClient HTTP_CLIENT = HttpClient.newHttpClient();
+    private static final HttpClient HTTP_CLIENT = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_2)
+            .followRedirects(HttpClient.Redirect.NORMAL)
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+    private static final ExecutorService PARSE_EXECUTOR = Executors.newFixedThreadPool(
+            Runtime.getRuntime().availableProcessors(), runnable -> {
+                Thread thread = new Thread(runnable, "bookmark-parse");
+                thread.setDaemon(true);
+                return thread;
+            });
+    private static final HtmlParser HTML_PARSER = new HtmlParser(HTTP_CLIENT, PARSE_EXECUTOR);
+    private static final ExecutorService FETCH_EXECUTOR = Executors.newFixedThreadPool(FETCH_THREADS, runnable -> {
+        Thread thread = new Thread(runnable, "bookmark-fetch");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private static final LinkChecker LINK_CHECKER = new LinkChecker(HTTP_CLIENT);
     private static final BookmarkManager BOOKMARK_MANAGER = new BookmarkManager(
             BOOKMARK_STORAGE,
             SHORTENER_SERVICE,
             HTML_PARSER,
-            HTTP_CLIENT
+            LINK_CHECKER,
+            FETCH_EXECUTOR
+    );
+
+    private static final LinkHealthMonitor LINK_HEALTH_MONITOR = new LinkHealthMonitor(
+            BOOKMARK_STORAGE.catalog(),
+            LINK_CHECKER,
+            Path.of(LINK_HEALTH_PATH)
     );
 
     private static final UserStorage USER_STORAGE = new UserStorage();
@@ -38,6 +67,14 @@ public class Dispatcher {
         return BOOKMARK_MANAGER;
     }
 
+    public static LinkChecker linkChecker() {
+        return LINK_CHECKER;
+    }
+
+    public static LinkHealthMonitor linkHealthMonitor() {
+        return LINK_HEALTH_MONITOR;
+    }
+
     public static Logger logger() {
         return LOGGER;
     }
@@ -0,0 +1,210 @@
+package bg.sofia.uni.fmi.mjt.bookmarks.manager.service;
+
+import bg.sofia.uni.fmi.mjt.bookmarks.manager.entity.LinkStatus;
+import bg.sofia.uni.fmi.mjt.bookmarks.manager.logger.Level;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Checks whether bookmarked urls still exist, many at a time.
+ * The urls of a host are checked by at most maxPerHost lanes, each taking the next url of the host
+ * once its previous one is done, so a single site is never flooded. Once started, the lanes of all
+ * the callers run on the checker's own bounded pool, so together they never exceed its size and never
+ * hold up the threads of other work while they wait for a response. Until then the checks run one
+ * at a time on the calling thread.
+ * A url is checked with HEAD and only an error status is confirmed with GET, since some servers do
+ * not support HEAD. The bodies are discarded.
+ */
+public class LinkChecker {
+    private static final String NO_HOST = "";
+    private static final Duration DEFAULT_TIMEOUT = Duration.ofSeconds(10);
+
+    private final HttpClient httpClient;
+
+    private volatile Lanes lanes;
+    private ExecutorService pool;
+
+    /**
+     * Creates a checker running the checks on the calling thread until it is started.
+     *
+     * @param httpClient the client the urls are checked with.
+     */
+    public LinkChecker(HttpClient httpClient) {
+        this(httpClient, Runnable::run, 1, DEFAULT_TIMEOUT);
+    }
+
+    /**
+     * @param httpClient the client the urls are checked with.
+     * @param executor   the executor the checks block on, which bounds the checks in flight across all the callers.
+     * @param maxPerHost the maximum number of checks of a single host in flight for a single caller.
+     * @param timeout    the timeout of a single request.
+     */
+    public LinkChecker(HttpClient httpClient, Executor executor, int maxPerHost, Duration timeout) {
+        this.httpClient = httpClient;
+        this.lanes = new Lanes(executor, maxPerHost, timeout);
+    }
+
+    /**
+     * Starts the pool the checks run on. Does nothing if the checker is already started
+     * or a limit is not positive.
+     *
+     * @param maxConcurrent the maximum number of checks in flight across all the callers.
+     * @param maxPerHost    the maximum number of checks of a single host in flight for a single caller.
+     * @param timeout       the timeout of a single request.
+     */
+    public synchronized void start(int maxConcurrent, int maxPerHost, Duration timeout) {
+        if (pool != null || maxConcurrent <= 0 || maxPerHost <= 0) {
+            return;
+        }
+
+        pool = Executors.newFixedThreadPool(maxConcurrent, runnable -> {
+            Thread thread = new Thread(runnable, "link-check");
+            thread.setDaemon(true);
+            return thread;
+        });
+        lanes = new Lanes(pool, maxPerHost, timeout);
+    }
+
+    /**
+     * Stops the pool of the checker. The checks after it run on the calling thread again.
+     * The requests already sent finish within their timeout.
+     */
+    public synchronized void stop() {
+        if (pool == null) {
+            return;
+        }
+
+        lanes = new Lanes(Runnable::run, 1, lanes.timeout());
+        pool.shutdownNow();
+        pool = null;
+    }
+
+    /**
+     * Checks every url. A url which cannot be checked does not stop the others.
+     * If the calling thread is interrupted, it stops waiting and the urls not taken by a lane yet are dropped.
+     * The checks already sent finish within their timeout.
+     *
+     * @param urls the urls to check.
+     * @return the status of each url, in the order of the urls. The urls not checked are reported as failed.
+     */
+    public List<LinkStatus> check(Collection<String> urls) {
+        Lanes current = lanes;
+        Map<String, Queue<String>> byHost = new LinkedHashMap<>();
+
+        for (String url : urls) {
+            byHost.computeIfAbsent(hostOf(url), host -> new ConcurrentLinkedQueue<>()).add(url);
+        }
+
+        Map<String, LinkStatus> statuses = new ConcurrentHashMap<>();
+        List<CompletableFuture<Void>> running = new ArrayList<>();
+
+        try {
+            for (Queue<String> queue : byHost.values()) {
+                int laneCount = Math.min(current.maxPerHost(), queue.size());
+
+                for (int i = 0; i < laneCount; i++) {
+                    running.add(CompletableFuture.runAsync(
+                            () -> drain(queue, statuses, current.timeout()), current.executor()));
+                }
+            }
+
+            CompletableFuture.allOf(running.toArray(CompletableFuture[]::new)).get();
+        } catch (RejectedExecutionException e) {
+            // the checker is stopped meanwhile
+            byHost.values().forEach(Queue::clear);
+            running.forEach(lane -> lane.cancel(true));
+        } catch (InterruptedException e) {
+            byHost.values().forEach(Queue::clear);
+            running.forEach(lane -> lane.cancel(true));
+
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new CompletionException(e.getCause());
+        }
+
+        return urls.stream()
+                .map(url -> statuses.getOrDefault(url, LinkStatus.failed(url, "Not checked.")))
+                .toList();
+    }
+
+    private void drain(Queue<String> queue, Map<String, LinkStatus> statuses, Duration timeout) {
+        String url;
+
+        while ((url = queue.poll()) != null) {
+            statuses.put(url, check(url, timeout));
+        }
+    }
+
+    /**
+     * @return the status of the url, confirmed with GET if HEAD reports an error.
+     */
+    public LinkStatus check(String url) {
+        return check(url, lanes.timeout());
+    }
+
+    private LinkStatus check(String url, Duration timeout) {
+        try {
+            URI uri = URI.create(url);
+
+            int status = send(uri, "HEAD", timeout);
+
+            if (status >= HttpURLConnection.HTTP_BAD_REQUEST) {
+                status = send(uri, "GET", timeout);
+            }
+
+            return LinkStatus.of(url, status);
+        } catch (IOException | IllegalArgumentException e) {
+            String logMsg = LinkChecker.class + " " + url + " " + e.getMessage();
+            Dispatcher.logger().log(Level.WARN, LocalDateTime.now(), logMsg);
+
+            return LinkStatus.failed(url, e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+
+            return LinkStatus.failed(url, "Interrupted.");
+        }
+    }
+
+    private int send(URI uri, String method, Duration timeout) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(uri)
+                .timeout(timeout)
+                .method(method, HttpRequest.BodyPublishers.noBody())
+                .build();
+
+        return httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    private static String hostOf(String url) {
+        try {
+            String host = URI.create(url).getHost();
+            return host != null ? host : NO_HOST;
+        } catch (IllegalArgumentException e) {
+            return NO_HOST;
+        }
+    }
+
+    private record Lanes(Executor executor, int maxPerHost, Duration timeout) {
+    }
+}
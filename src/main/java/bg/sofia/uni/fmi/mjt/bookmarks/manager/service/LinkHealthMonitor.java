@@ -0,0 +1,335 @@
+package bg.sofia.uni.fmi.mjt.bookmarks.manager.service;
+
+import bg.sofia.uni.fmi.mjt.bookmarks.manager.entity.LinkStatus;
+import bg.sofia.uni.fmi.mjt.bookmarks.manager.logger.Level;
+import bg.sofia.uni.fmi.mjt.bookmarks.manager.repository.BookmarkCatalog;
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Validates the bookmarked urls in the background, so cleanup only has to remove the ones already known to be dead.
+ * The urls of the catalog are walked in order, a small batch at a time with a pause between the batches.
+ * The health of each url is recorded in the catalog. After every batch the cursor and the health of the batch
+ * are appended to a checkpoint file as a JSON line, so a restarted server resumes where it stopped.
+ * The file is rewritten as a single line about once per walk of the whole catalog, so it stays proportional
+ * to the catalog while a batch only costs as much as its own urls. The restored health of the urls missing
+ * from the catalog is kept until a walk of the catalog completes, so a catalog not loaded yet does not
+ * lose it.
+ */
+public class LinkHealthMonitor {
+    private static final int MIN_BATCHES_BETWEEN_COMPACTIONS = 16;
+
+    private final BookmarkCatalog catalog;
+    private final LinkChecker checker;
+    private final Path checkpoint;
+    private final Gson gson = new Gson();
+    private final Object batchLock = new Object();
+
+    private final Map<String, Check> unknown = new HashMap<>();
+
+    private String cursor;
+    private int batchSize = 1;
+    private int appendedBatches = 0;
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * @param catalog    the catalog whose urls are validated.
+     * @param checker    the checker validating the urls.
+     * @param checkpoint the file the progress is kept in.
+     */
+    public LinkHealthMonitor(BookmarkCatalog catalog, LinkChecker checker, Path checkpoint) {
+        this.catalog = catalog;
+        this.checker = checker;
+        this.checkpoint = checkpoint;
+    }
+
+    /**
+     * Restores the checkpoint and starts validating the urls in the background.
+     * Does nothing if the monitor is already running or the interval is not positive.
+     *
+     * @param intervalMillis the pause between two batches.
+     * @param batchSize      the number of urls validated in a single batch.
+     */
+    public synchronized void start(long intervalMillis, int batchSize) {
+        if (scheduler != null || intervalMillis <= 0 || batchSize <= 0) {
+            return;
+        }
+
+        this.batchSize = batchSize;
+        restore();
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "link-health");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::checkSafely, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops the background validation. The batch in progress stops waiting for its checks and is not recorded.
+     * The requests already sent finish within their timeout.
+     */
+    public void stop() {
+        ScheduledExecutorService running;
+
+        synchronized (this) {
+            running = scheduler;
+            scheduler = null;
+        }
+
+        if (running != null) {
+            running.shutdownNow();
+        }
+    }
+
+    /**
+     * Validates the urls following the cursor and moves the cursor past them.
+     * Starts over from the first url once the last one is validated.
+     * A batch interrupted while it is validated is neither recorded nor passed by the cursor.
+     * The batches run one at a time, but the monitor is not locked while the urls are validated,
+     * so stopping it or reading the cursor never waits for the requests.
+     *
+     * @return the number of validated urls.
+     */
+    public int checkNextBatch() {
+        synchronized (batchLock) {
+            List<String> batch = nextBatch();
+
+            if (batch.isEmpty()) {
+                return 0;
+            }
+
+            Instant checkedAt = Instant.now();
+            List<LinkStatus> statuses = checker.check(batch);
+
+            if (Thread.currentThread().isInterrupted()) {
+                return 0;
+            }
+
+            record(batch, statuses, checkedAt);
+
+            return batch.size();
+        }
+    }
+
+    private synchronized List<String> nextBatch() {
+        List<String> batch = catalog.urlsAfter(cursor, batchSize);
+
+        if (batch.isEmpty() && cursor != null) {
+            cursor = null;
+            batch = catalog.urlsAfter(null, batchSize);
+
+            adoptUnknown();
+            if (!batch.isEmpty()) {
+                unknown.clear();
+            }
+        }
+
+        return batch;
+    }
+
+    private synchronized void record(List<String> batch, List<LinkStatus> statuses, Instant checkedAt) {
+        Checkpoint delta = new Checkpoint();
+
+        for (LinkStatus status : statuses) {
+            catalog.record(status.url(), status, checkedAt);
+            delta.checks.put(status.url(), Check.of(status, checkedAt));
+        }
+
+        cursor = batch.get(batch.size() - 1);
+        delta.cursor = cursor;
+        store(delta);
+    }
+
+    /**
+     * @return the last url validated or null if the next batch starts from the first url.
+     */
+    public synchronized String cursor() {
+        return cursor;
+    }
+
+    private void checkSafely() {
+        try {
+            checkNextBatch();
+        } catch (RuntimeException e) {
+            String logMsg = LinkHealthMonitor.class + " " + e.getMessage();
+            Dispatcher.logger().log(Level.ERROR, LocalDateTime.now(), logMsg);
+            Dispatcher.logger().log(Level.ERROR, LocalDateTime.now(), Arrays.toString(e.getStackTrace()));
+        }
+    }
+
+    /**
+     * Appends the batch to the checkpoint, or compacts the checkpoint once enough batches are appended
+     * to have walked the whole catalog.
+     */
+    private void store(Checkpoint delta) {
+        if (++appendedBatches >= Math.max(MIN_BATCHES_BETWEEN_COMPACTIONS, catalog.size() / batchSize)) {
+            compact();
+            return;
+        }
+
+        try (Writer writer = Files.newBufferedWriter(checkpoint,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            writer.write(gson.toJson(delta));
+            writer.write(System.lineSeparator());
+        } catch (IOException e) {
+            String logMsg = LinkHealthMonitor.class + " Could not store the checkpoint. " + e.getMessage();
+            Dispatcher.logger().log(Level.WARN, LocalDateTime.now(), logMsg);
+        }
+    }
+
+    /**
+     * Rewrites the checkpoint as a single line holding the cursor and the health of every url.
+     * It is written to a temporary file first, so a crash never leaves a truncated one behind.
+     */
+    private void compact() {
+        adoptUnknown();
+
+        Checkpoint snapshot = new Checkpoint();
+        snapshot.cursor = cursor;
+        snapshot.checks.putAll(unknown);
+
+        for (String url : catalog.urlsAfter(null, Integer.MAX_VALUE)) {
+            catalog.status(url).ifPresent(status ->
+                    snapshot.checks.put(url, Check.of(status, catalog.checkedAt(url).orElse(Instant.EPOCH))));
+        }
+
+        try {
+            Path temporary = checkpoint.resolveSibling(checkpoint.getFileName() + ".tmp");
+
+            try (Writer writer = Files.newBufferedWriter(temporary)) {
+                writer.write(gson.toJson(snapshot));
+                writer.write(System.lineSeparator());
+            }
+
+            Files.move(temporary, checkpoint, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            appendedBatches = 0;
+        } catch (IOException e) {
+            String logMsg = LinkHealthMonitor.class + " Could not store the checkpoint. " + e.getMessage();
+            Dispatcher.logger().log(Level.WARN, LocalDateTime.now(), logMsg);
+        }
+    }
+
+    /**
+     * Records the restored health of the urls added to the catalog since, unless they are checked already.
+     */
+    private void adoptUnknown() {
+        unknown.entrySet().removeIf(entry -> {
+            String url = entry.getKey();
+
+            if (catalog.status(url).isEmpty()) {
+                catalog.record(url, entry.getValue().toStatus(url), entry.getValue().checkedAt());
+            }
+
+            return catalog.status(url).isPresent();
+        });
+    }
+
+    /**
+     * Replays the lines of the checkpoint in order. A line cut short by a crash ends the replay.
+     * The checkpoint is compacted afterwards, so it starts from a single line again.
+     */
+    private void restore() {
+        if (!Files.exists(checkpoint)) {
+            return;
+        }
+
+        try (BufferedReader reader = Files.newBufferedReader(checkpoint)) {
+            String line;
+
+            while ((line = reader.readLine()) != null) {
+                if (!line.isBlank() && !replay(line)) {
+                    break;
+                }
+            }
+        } catch (IOException e) {
+            String logMsg = LinkHealthMonitor.class + " Could not restore the checkpoint. " + e.getMessage();
+            Dispatcher.logger().log(Level.WARN, LocalDateTime.now(), logMsg);
+            return;
+        }
+
+        compact();
+    }
+
+    /**
+     * @return false if the line cannot be parsed.
+     */
+    private boolean replay(String line) {
+        Checkpoint restored;
+        try {
+            restored = gson.fromJson(line, Checkpoint.class);
+        } catch (JsonParseException e) {
+            String logMsg = LinkHealthMonitor.class + " Could not restore the checkpoint. " + e.getMessage();
+            Dispatcher.logger().log(Level.WARN, LocalDateTime.now(), logMsg);
+            return false;
+        }
+
+        if (restored == null) {
+            return true;
+        }
+
+        cursor = restored.cursor;
+
+        if (restored.checks != null) {
+            restored.checks.forEach((url, check) -> {
+                catalog.record(url, check.toStatus(url), check.checkedAt());
+
+                if (catalog.status(url).isEmpty()) {
+                    unknown.put(url, check);
+                } else {
+                    unknown.remove(url);
+                }
+            });
+        }
+
+        return true;
+    }
+
+    private static final class Checkpoint {
+        private final Map<String, Check> unknown = new HashMap<>();
+
+    private String cursor;
+        private Map<String, Check> checks = new HashMap<>();
+    }
+
+    private static final class Check {
+        private int statusCode;
+        private String error;
+        private long checkedAt;
+
+        private static Check of(LinkStatus status, Instant checkedAt) {
+            Check check = new Check();
+            check.statusCode = status.statusCode();
+            check.error = status.error();
+            check.checkedAt = checkedAt.toEpochMilli();
+
+            return check;
+        }
+
+        private LinkStatus toStatus(String url) {
+            return new LinkStatus(url, statusCode, error);
+        }
+
+        private Instant checkedAt() {
+            return Instant.ofEpochMilli(checkedAt);
+        }
+    }
+}
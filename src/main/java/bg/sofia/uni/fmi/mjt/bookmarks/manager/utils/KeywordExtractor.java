@@ -0,0 +1,237 @@
+package bg.sofia.uni.fmi.mjt.bookmarks.manager.utils;
+
+import org.jsoup.nodes.Element;
+import org.jsoup.nodes.Node;
+import org.jsoup.nodes.TextNode;
+import org.jsoup.select.NodeTraversor;
+import org.jsoup.select.NodeVisitor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Extracts the most frequent words of a page as its keywords.
+ * The text nodes are scanned one code point at a time, so the text of the page is never joined into one string.
+ * A word is a run of code points which are neither punctuation nor white space.
+ * The words are counted in an open-addressing table which each thread reuses between pages.
+ * The keywords are ordered by their count and then by their first occurrence in the page.
+ */
+public final class KeywordExtractor {
+    private static final int INITIAL_CAPACITY = 256;
+    private static final int MAX_RETAINED_CAPACITY = 1 << 14;
+
+    private static final ThreadLocal<KeywordExtractor> EXTRACTORS = ThreadLocal.withInitial(KeywordExtractor::new);
+
+    private final StringBuilder word = new StringBuilder();
+
+    private String[] words = new String[INITIAL_CAPACITY];
+    private int[] counts = new int[INITIAL_CAPACITY];
+    private int[] firstOccurrences = new int[INITIAL_CAPACITY];
+    private int size = 0;
+
+    private StopWords stopWords;
+    private int minLength;
+
+    private KeywordExtractor() {
+    }
+
+    /**
+     * @param root      the element whose text is scanned.
+     * @param stopWords the words which are never keywords.
+     * @param minLength the words of this length or shorter are never keywords.
+     * @param limit     the maximum number of keywords.
+     * @return the lower-cased keywords, the most frequent first.
+     */
+    public static List<String> keywords(Element root, StopWords stopWords, int minLength, int limit) {
+        KeywordExtractor extractor = EXTRACTORS.get();
+
+        try {
+            return extractor.extract(root, stopWords, minLength, limit);
+        } finally {
+            extractor.reset();
+        }
+    }
+
+    private List<String> extract(Element root, StopWords stopWords, int minLength, int limit) {
+        this.stopWords = stopWords;
+        this.minLength = minLength;
+
+        if (root != null) {
+            NodeTraversor.traverse(new TextVisitor(), root);
+            endWord();
+        }
+
+        return top(limit);
+    }
+
+    private static boolean separates(Node node) {
+        return node instanceof Element element && (element.isBlock() || element.normalName().equals("br"));
+    }
+
+    private void scan(String text) {
+        for (int i = 0; i < text.length(); ) {
+            int codePoint = text.codePointAt(i);
+
+            if (isSeparator(codePoint)) {
+                endWord();
+            } else {
+                word.appendCodePoint(Character.toLowerCase(codePoint));
+            }
+
+            i += Character.charCount(codePoint);
+        }
+    }
+
+    private static boolean isSeparator(int codePoint) {
+        if (Character.isWhitespace(codePoint) || Character.isSpaceChar(codePoint)) {
+            return true;
+        }
+
+        return switch (Character.getType(codePoint)) {
+            case Character.CONNECTOR_PUNCTUATION, Character.DASH_PUNCTUATION,
+                    Character.START_PUNCTUATION, Character.END_PUNCTUATION,
+                    Character.INITIAL_QUOTE_PUNCTUATION, Character.FINAL_QUOTE_PUNCTUATION,
+                    Character.OTHER_PUNCTUATION -> true;
+            default -> false;
+        };
+    }
+
+    private void endWord() {
+        if (word.length() > minLength && !stopWords.isStopWord(word)) {
+            count(word);
+        }
+
+        word.setLength(0);
+    }
+
+    private void count(CharSequence candidate) {
+        int mask = words.length - 1;
+        int slot = hash(candidate) & mask;
+
+        while (words[slot] != null) {
+            if (words[slot].contentEquals(candidate)) {
+                counts[slot]++;
+                return;
+            }
+
+            slot = (slot + 1) & mask;
+        }
+
+        words[slot] = candidate.toString();
+        counts[slot] = 1;
+        firstOccurrences[slot] = size++;
+
+        if (size * 2 > words.length) {
+            resize(words.length * 2);
+        }
+    }
+
+    private void resize(int capacity) {
+        String[] oldWords = words;
+        int[] oldCounts = counts;
+        int[] oldFirstOccurrences = firstOccurrences;
+
+        words = new String[capacity];
+        counts = new int[capacity];
+        firstOccurrences = new int[capacity];
+
+        int mask = capacity - 1;
+
+        for (int i = 0; i < oldWords.length; i++) {
+            if (oldWords[i] != null) {
+                int slot = hash(oldWords[i]) & mask;
+
+                while (words[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+
+                words[slot] = oldWords[i];
+                counts[slot] = oldCounts[i];
+                firstOccurrences[slot] = oldFirstOccurrences[i];
+            }
+        }
+    }
+
+    private static int hash(CharSequence text) {
+        int hash = 0;
+
+        for (int i = 0; i < text.length(); i++) {
+            hash = 31 * hash + text.charAt(i);
+        }
+
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * Keeps the best slots in a min-heap bounded by the limit, so the words are never sorted as a whole.
+     */
+    private List<String> top(int limit) {
+        if (limit <= 0) {
+            return List.of();
+        }
+
+        Comparator<Integer> byRank = Comparator.<Integer>comparingInt(slot -> counts[slot])
+                .thenComparing(Comparator.<Integer>comparingInt(slot -> firstOccurrences[slot]).reversed());
+
+        PriorityQueue<Integer> heap = new PriorityQueue<>(limit + 1, byRank);
+
+        for (int slot = 0; slot < words.length; slot++) {
+            if (words[slot] == null) {
+                continue;
+            }
+
+            if (heap.size() < limit) {
+                heap.add(slot);
+            } else if (byRank.compare(slot, heap.peek()) > 0) {
+                heap.poll();
+                heap.add(slot);
+            }
+        }
+
+        List<String> keywords = new ArrayList<>(heap.size());
+
+        while (!heap.isEmpty()) {
+            keywords.add(words[heap.poll()]);
+        }
+
+        Collections.reverse(keywords);
+
+        return keywords;
+    }
+
+    private void reset() {
+        if (words.length > MAX_RETAINED_CAPACITY) {
+            words = new String[INITIAL_CAPACITY];
+            counts = new int[INITIAL_CAPACITY];
+            firstOccurrences = new int[INITIAL_CAPACITY];
+        } else {
+            Arrays.fill(words, null);
+        }
+
+        size = 0;
+        stopWords = null;
+        word.setLength(0);
+    }
+
+    private final class TextVisitor implements NodeVisitor {
+        @Override
+        public void head(Node node, int depth) {
+            if (node instanceof TextNode text) {
+                scan(text.getWholeText());
+            } else if (separates(node)) {
+                endWord();
+            }
+        }
+
+        @Override
+        public void tail(Node node, int depth) {
+            if (separates(node)) {
+                endWord();
+            }
+        }
+    }
+}
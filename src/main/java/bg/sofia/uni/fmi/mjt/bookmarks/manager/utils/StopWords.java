@@ -8,20 +8,49 @@ import java.io.BufferedReader;
 import java.io.FileReader;
 import java.io.IOException;
 import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.LocalDateTime;
-import java.util.HashSet;
-import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * A case-insensitive set of stop words, kept in an open-addressing table.
+ * Lookups compare the characters of the word case-insensitively, so they neither copy nor lowercase it.
+ * The table is never modified once published. Loading more words builds a new one, so lookups do not lock.
+ * The words loaded from files are loaded again by {@link #reloadIfModified()} when a file changes.
+ */
 public class StopWords {
     private static final String FAILED_LOADING = "Failed to load stopwords!";
+    private static final long RELOAD_CHECK_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(30);
 
     public static final String STOPWORDS_EN_PATH = "src/main/resources/stopwords_en.txt";
     public static final String STOPWORDS_BG_PATH = "src/main/resources/stopwords_bg.txt";
 
-    private final Set<String> stopWords = new HashSet<>();
+    private final Map<String, Long> sources = new LinkedHashMap<>();
+    private final List<String> readerWords = new ArrayList<>();
 
-    public void load(String path) throws StopWordsException {
+    private volatile String[] table = new String[0];
+    private int size = 0;
+    private volatile long lastReloadCheck = System.nanoTime();
+
+    /**
+     * The English and Bulgarian stop words, loaded once and shared by the whole process.
+     * The files are checked for changes at most once per 30 seconds.
+     *
+     * @return the default stop words.
+     */
+    public static StopWords defaults() {
+        StopWords defaults = DefaultsHolder.DEFAULTS;
+        defaults.reloadIfDue();
+
+        return defaults;
+    }
+
+    public synchronized void load(String path) throws StopWordsException {
         if (path == null) {
             String logMsg = StopWords.class + " load(String path): reader is null.";
             Dispatcher.logger().log(Level.WARN, LocalDateTime.now(), logMsg);
@@ -29,8 +58,101 @@ public class StopWords {
             throw new StopWordsException(FAILED_LOADING);
         }
 
+        List<String> words = read(path);
+        sources.put(path, lastModified(path));
+
+        publish(words);
+    }
+
+    public synchronized void load(Reader reader) throws StopWordsException {
+        List<String> words = read(reader);
+        readerWords.addAll(words);
+
+        publish(words);
+    }
+
+    public boolean isStopWord(String word) {
+        return isStopWord((CharSequence) word);
+    }
+
+    /**
+     * @param word the word, in any case.
+     * @return true if the word is a stop word.
+     */
+    public boolean isStopWord(CharSequence word) {
+        String[] current = table;
+
+        if (word == null || current.length == 0) {
+            return false;
+        }
+
+        int mask = current.length - 1;
+
+        for (int slot = hash(word) & mask; current[slot] != null; slot = (slot + 1) & mask) {
+            if (matches(current[slot], word)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Loads every file again if any of them has changed since it was loaded.
+     * If a file cannot be read, the current words are kept.
+     *
+     * @return true if the words were loaded again.
+     */
+    public synchronized boolean reloadIfModified() {
+        boolean modified = sources.entrySet().stream()
+                .anyMatch(source -> lastModified(source.getKey()) != source.getValue());
+
+        if (!modified) {
+            return false;
+        }
+
+        List<String> words = new ArrayList<>(readerWords);
+
+        try {
+            for (String path : sources.keySet()) {
+                words.addAll(read(path));
+                sources.put(path, lastModified(path));
+            }
+        } catch (StopWordsException e) {
+            return false;
+        }
+
+        table = new String[0];
+        size = 0;
+        publish(words);
+
+        return true;
+    }
+
+    /**
+     * Only the timestamp is read until a check is due, so the lookups between the checks never lock.
+     */
+    private void reloadIfDue() {
+        if (System.nanoTime() - lastReloadCheck < RELOAD_CHECK_INTERVAL_NANOS) {
+            return;
+        }
+
+        synchronized (this) {
+            long now = System.nanoTime();
+
+            if (now - lastReloadCheck < RELOAD_CHECK_INTERVAL_NANOS) {
+                return;
+            }
+
+            lastReloadCheck = now;
+        }
+
+        reloadIfModified();
+    }
+
+    private List<String> read(String path) throws StopWordsException {
         try (var fr = new FileReader(path)) {
-            load(fr);
+            return read(fr);
         } catch (IOException e) {
             String logMsg = StopWords.class + " " + e.getMessage();
             Dispatcher.logger().log(Level.WARN, LocalDateTime.now(), logMsg);
@@ -39,7 +161,7 @@ public class StopWords {
         }
     }
 
-    public void load(Reader reader) throws StopWordsException {
+    private List<String> read(Reader reader) throws StopWordsException {
         if (reader == null) {
             String logMsg = StopWords.class + " load(Reader reader): reader is null.";
             Dispatcher.logger().log(Level.WARN, LocalDateTime.now(), logMsg);
@@ -48,7 +170,11 @@ public class StopWords {
         }
 
         try (var br = new BufferedReader(reader)) {
-            this.stopWords.addAll(br.lines().collect(Collectors.toSet()));
+            return br.lines()
+                    .map(String::strip)
+                    .filter(word -> !word.isEmpty())
+                    .map(StopWords::toLowerCase)
+                    .toList();
         } catch (IOException e) {
             String logMsg = StopWords.class + " " + e.getMessage();
             Dispatcher.logger().log(Level.WARN, LocalDateTime.now(), logMsg);
@@ -57,8 +183,109 @@ public class StopWords {
         }
     }
 
-    public boolean isStopWord(String word) {
-        return stopWords.contains(word);
+    private static long lastModified(String path) {
+        try {
+            return Files.getLastModifiedTime(Path.of(path)).toMillis();
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Builds a table holding the current words and the new ones, at most half full, and publishes it.
+     */
+    private void publish(List<String> words) {
+        String[] current = table;
+        int capacity = Integer.highestOneBit(Math.max(size + words.size(), 1) * 2 - 1) << 1;
+        String[] next = new String[capacity];
+        int count = 0;
+
+        for (String word : current) {
+            if (word != null) {
+                insert(next, word);
+                count++;
+            }
+        }
+
+        for (String word : words) {
+            if (insert(next, word)) {
+                count++;
+            }
+        }
+
+        size = count;
+        table = next;
     }
 
+    private static boolean insert(String[] target, String word) {
+        int mask = target.length - 1;
+        int slot = hash(word) & mask;
+
+        while (target[slot] != null) {
+            if (target[slot].equals(word)) {
+                return false;
+            }
+
+            slot = (slot + 1) & mask;
+        }
+
+        target[slot] = word;
+        return true;
+    }
+
+    private static int hash(CharSequence word) {
+        int hash = 0;
+
+        for (int i = 0; i < word.length(); i++) {
+            hash = 31 * hash + toLowerCase(word.charAt(i));
+        }
+
+        return hash ^ (hash >>> 16);
+    }
+
+    private static boolean matches(String stopWord, CharSequence word) {
+        if (stopWord.length() != word.length()) {
+            return false;
+        }
+
+        for (int i = 0; i < stopWord.length(); i++) {
+            if (stopWord.charAt(i) != toLowerCase(word.charAt(i))) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Lower-cases a word one char at a time, the same way the lookups do, so a stored word is always found.
+     * Unlike {@link String#toLowerCase(java.util.Locale)} this never changes the length of the word.
+     */
+    private static String toLowerCase(String word) {
+        char[] chars = word.toCharArray();
+
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = toLowerCase(chars[i]);
+        }
+
+        return new String(chars);
+    }
+
+    private static char toLowerCase(char c) {
+        return Character.toLowerCase(c);
+    }
+
+    private static final class DefaultsHolder {
+        private static final StopWords DEFAULTS = new StopWords();
+
+        static {
+            try {
+                DEFAULTS.load(STOPWORDS_EN_PATH);
+                DEFAULTS.load(STOPWORDS_BG_PATH);
+            } catch (StopWordsException e) {
+                String logMsg = StopWords.class + " " + e.getMessage();
+                Dispatcher.logger().log(Level.WARN, LocalDateTime.now(), logMsg);
+            }
+        }
+    }
 }
@@ -0,0 +1,80 @@
+package bg.sofia.uni.fmi.mjt.bookmarks.manager.utils;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The dictionary of every tag known to the server. Each distinct tag is stored once
+ * and the bookmarks refer to it by its id. Ids are never reused, so the dictionary only grows,
+ * bounded by the vocabulary of the bookmarked pages.
+ * Looking a tag or an id up does not lock. Only adding a new tag does.
+ */
+public final class TagDictionary {
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private static final Map<String, Integer> IDS = new ConcurrentHashMap<>();
+    private static volatile String[] tags = new String[INITIAL_CAPACITY];
+    private static int size = 0;
+
+    private TagDictionary() {
+    }
+
+    /**
+     * @param tag the tag.
+     * @return the id of the tag, added to the dictionary if it is new.
+     */
+    public static int id(String tag) {
+        Integer id = IDS.get(tag);
+
+        return id != null ? id : add(tag);
+    }
+
+    /**
+     * @param id the id of a tag.
+     * @return the tag with the given id.
+     * @throws IllegalArgumentException if there is no tag with the given id.
+     */
+    public static String tag(int id) {
+        String[] current = tags;
+
+        if (id >= 0 && id < current.length && current[id] != null) {
+            return current[id];
+        }
+
+        synchronized (TagDictionary.class) {
+            if (id < 0 || id >= size) {
+                throw new IllegalArgumentException("There is no tag with id " + id);
+            }
+
+            return tags[id];
+        }
+    }
+
+    /**
+     * @return the number of distinct tags.
+     */
+    public static synchronized int size() {
+        return size;
+    }
+
+    private static synchronized int add(String tag) {
+        Integer existing = IDS.get(tag);
+
+        if (existing != null) {
+            return existing;
+        }
+
+        String[] current = tags;
+
+        if (size == current.length) {
+            current = Arrays.copyOf(current, current.length * 2);
+        }
+
+        current[size] = tag;
+        tags = current;
+        IDS.put(tag, size);
+
+        return size++;
+    }
+}
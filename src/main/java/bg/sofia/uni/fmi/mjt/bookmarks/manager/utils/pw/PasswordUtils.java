@@ -43,7 +43,7 @@ public class PasswordUtils {
 
         byte[] hash = skf.generateSecret(spec).getEncoded();
 
-        String saltHex = new BigInteger(1, salt).toString(RADIX);
+        String saltHex = HexFormat.of().formatHex(salt);
         String hashHex = new BigInteger(1, hash).toString(RADIX);
 
         return String.format("%s:%s", saltHex, hashHex);
@@ -62,12 +62,14 @@ public class PasswordUtils {
         return actual.equals(expectedHash);
     }
 
+    /**
+     * Hashes stored before the salt was written with a fixed width lost the leading zero bytes of their salt,
+     * so a shorter salt is padded back to its full size.
+     */
     private static byte[] saltFromHex(String hex) {
-        if (hex.length() % 2 == 1) {
-            hex = "0" + hex;
-        }
+        int length = Math.max(hex.length() + hex.length() % 2, SALT_SIZE * 2);
 
-        return HexFormat.of().parseHex(hex);
+        return HexFormat.of().parseHex("0".repeat(length - hex.length()) + hex);
     }
 
     private static byte[] generateRandomSalt() {
@@ -0,0 +1,21 @@
+package bg.sofia.uni.fmi.mjt.bookmarks.manager.utils.query;
+
+import java.util.List;
+
+/**
+ * A boolean expression over the tags of the bookmarks.
+ */
+public sealed interface TagQuery {
+
+    record Tag(String name) implements TagQuery {
+    }
+
+    record And(List<TagQuery> operands) implements TagQuery {
+    }
+
+    record Or(List<TagQuery> operands) implements TagQuery {
+    }
+
+    record Not(TagQuery operand) implements TagQuery {
+    }
+}
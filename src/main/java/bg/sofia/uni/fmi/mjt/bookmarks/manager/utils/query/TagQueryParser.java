@@ -0,0 +1,189 @@
+package bg.sofia.uni.fmi.mjt.bookmarks.manager.utils.query;
+
+import bg.sofia.uni.fmi.mjt.bookmarks.manager.exception.TagQueryException;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A recursive descent parser of tag queries such as {@code java AND (nio OR netty) NOT spring}.
+ * The operators are case-insensitive and NOT binds tightest, then AND, then OR.
+ * Adjacent operands are joined by AND, so {@code java NOT spring} means {@code java AND NOT spring}.
+ * Double quotes around the query are ignored.
+ * The parser recurses once per nested parenthesis or NOT, so both the nesting depth and the number of tokens
+ * are limited, and a query exceeding them is rejected before it can exhaust the stack.
+ *
+ * <pre>
+ * or      := and ("OR" and)*
+ * and     := not ("AND"? not)*
+ * not     := "NOT" not | primary
+ * primary := tag | "(" or ")"
+ * </pre>
+ */
+public class TagQueryParser {
+    private static final String AND = "and";
+    private static final String OR = "or";
+    private static final String NOT = "not";
+    private static final String OPEN = "(";
+    private static final String CLOSE = ")";
+
+    private static final int MAX_DEPTH = 32;
+    private static final int MAX_TOKENS = 256;
+
+    private final List<String> tokens;
+    private int position = 0;
+    private int depth = 0;
+
+    private TagQueryParser(List<String> tokens) {
+        this.tokens = tokens;
+    }
+
+    /**
+     * @param query the query to parse.
+     * @return the parsed query.
+     * @throws TagQueryException if the query is blank, malformed, too long or nested too deeply.
+     */
+    public static TagQuery parse(String query) throws TagQueryException {
+        if (query == null) {
+            throw new TagQueryException("The query is null.");
+        }
+
+        TagQueryParser parser = new TagQueryParser(tokenize(query));
+
+        if (parser.tokens.isEmpty()) {
+            throw new TagQueryException("The query is empty.");
+        }
+
+        TagQuery result = parser.or();
+
+        if (parser.hasNext()) {
+            throw new TagQueryException("Unexpected " + parser.peek() + " in the query.");
+        }
+
+        return result;
+    }
+
+    private TagQuery or() throws TagQueryException {
+        List<TagQuery> operands = new ArrayList<>();
+        operands.add(and());
+
+        while (accept(OR)) {
+            operands.add(and());
+        }
+
+        return operands.size() == 1 ? operands.get(0) : new TagQuery.Or(operands);
+    }
+
+    private TagQuery and() throws TagQueryException {
+        List<TagQuery> operands = new ArrayList<>();
+        operands.add(not());
+
+        while (hasNext() && !isKeyword(OR) && !peek().equals(CLOSE)) {
+            accept(AND);
+            operands.add(not());
+        }
+
+        return operands.size() == 1 ? operands.get(0) : new TagQuery.And(operands);
+    }
+
+    private TagQuery not() throws TagQueryException {
+        if (accept(NOT)) {
+            enter();
+            TagQuery operand = not();
+            depth--;
+
+            return new TagQuery.Not(operand);
+        }
+
+        return primary();
+    }
+
+    private TagQuery primary() throws TagQueryException {
+        if (!hasNext()) {
+            throw new TagQueryException("Unexpected end of the query.");
+        }
+
+        if (peek().equals(OPEN)) {
+            position++;
+            enter();
+            TagQuery inner = or();
+            depth--;
+
+            if (!hasNext() || !peek().equals(CLOSE)) {
+                throw new TagQueryException("Missing ) in the query.");
+            }
+
+            position++;
+            return inner;
+        }
+
+        if (peek().equals(CLOSE) || isKeyword(AND) || isKeyword(OR)) {
+            throw new TagQueryException("Unexpected " + peek() + " in the query.");
+        }
+
+        return new TagQuery.Tag(tokens.get(position++));
+    }
+
+    private void enter() throws TagQueryException {
+        if (++depth > MAX_DEPTH) {
+            throw new TagQueryException("The query is nested deeper than " + MAX_DEPTH + " levels.");
+        }
+    }
+
+    private boolean accept(String keyword) {
+        if (hasNext() && isKeyword(keyword)) {
+            position++;
+            return true;
+        }
+
+        return false;
+    }
+
+    private boolean isKeyword(String keyword) {
+        return peek().equalsIgnoreCase(keyword);
+    }
+
+    private boolean hasNext() {
+        return position < tokens.size();
+    }
+
+    private String peek() {
+        return tokens.get(position);
+    }
+
+    private static List<String> tokenize(String query) throws TagQueryException {
+        List<String> tokens = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+
+        for (int i = 0; i < query.length(); i++) {
+            char c = query.charAt(i);
+
+            if (Character.isWhitespace(c) || c == '"' || c == '(' || c == ')') {
+                if (!current.isEmpty()) {
+                    addToken(tokens, current.toString());
+                    current.setLength(0);
+                }
+
+                if (c == '(' || c == ')') {
+                    addToken(tokens, String.valueOf(c));
+                }
+            } else {
+                current.append(c);
+            }
+        }
+
+        if (!current.isEmpty()) {
+            addToken(tokens, current.toString());
+        }
+
+        return tokens;
+    }
+
+    private static void addToken(List<String> tokens, String token) throws TagQueryException {
+        if (tokens.size() == MAX_TOKENS) {
+            throw new TagQueryException("The query has more than " + MAX_TOKENS + " tokens.");
+        }
+
+        tokens.add(token);
+    }
+}
@@ -43,7 +43,23 @@ class ServerConfigTest {
                         "port": 1234,
                         "bufferSize": 2048,
                         "isBufferDirect": true,
-                        "isBlocking": true
+                        "isBlocking": true,
+                        "workerThreads": 4,
+                        "reactorThreads": 2,
+                        "bufferPoolSize": 256,
+                        "idleTimeoutMillis": 60000,
+                        "halfOpenTimeoutMillis": 5000,
+                        "sessionTimeoutMillis": 0,
+                        "maxConnections": 100,
+                        "maxInFlightCommands": 8,
+                        "maxOutboundBytes": 65536,
+                        "shutdownTimeoutMillis": 2000,
+                        "compressionThreshold": 512,
+                        "linkCheckIntervalMillis": 30000,
+                        "linkCheckBatchSize": 10,
+                        "linkCheckMaxConcurrent": 8,
+                        "linkCheckMaxPerHost": 2,
+                        "linkCheckTimeoutMillis": 3000
                       }
                       """;
         StringReader reader = new StringReader(json);
@@ -55,6 +71,35 @@ class ServerConfigTest {
         assertEquals(2048, actual.bufferSize(), message);
         assertTrue(actual.isBlocking(), message);
         assertTrue(actual.isBufferDirect(), message);
+        assertEquals(4, actual.workerThreads(), message);
+        assertEquals(2, actual.reactorThreads(), message);
+        assertEquals(256, actual.bufferPoolSize(), message);
+        assertEquals(60000, actual.idleTimeoutMillis(), message);
+        assertEquals(5000, actual.halfOpenTimeoutMillis(), message);
+        assertEquals(0, actual.sessionTimeoutMillis(), message);
+        assertEquals(100, actual.maxConnections(), message);
+        assertEquals(8, actual.maxInFlightCommands(), message);
+        assertEquals(65536, actual.maxOutboundBytes(), message);
+        assertEquals(2000, actual.shutdownTimeoutMillis(), message);
+        assertEquals(512, actual.compressionThreshold(), message);
+        assertEquals(30000, actual.linkCheckIntervalMillis(), message);
+        assertEquals(10, actual.linkCheckBatchSize(), message);
+        assertEquals(8, actual.linkCheckMaxConcurrent(), message);
+        assertEquals(2, actual.linkCheckMaxPerHost(), message);
+        assertEquals(3000, actual.linkCheckTimeoutMillis(), message);
+    }
+
+    @Test
+    void loadFromReaderWithMissingSettings() {
+        String message = "The settings missing from the config should keep their default values.";
+
+        StringReader reader = new StringReader("{\"port\": 1234}");
+
+        ServerConfig actual = ServerConfig.newCustomServerConfig(reader);
+
+        assertEquals(1234, actual.port(), message);
+        assertEquals(0, actual.workerThreads(), message);
+        assertEquals(0, actual.reactorThreads(), message);
     }
 
     @Test
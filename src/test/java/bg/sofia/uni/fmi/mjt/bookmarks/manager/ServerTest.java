@@ -0,0 +1,222 @@
+package bg.sofia.uni.fmi.mjt.bookmarks.manager;
+
+import bg.sofia.uni.fmi.mjt.bookmarks.manager.entity.Bookmark;
+import bg.sofia.uni.fmi.mjt.bookmarks.manager.repository.Bookmarks;
+import bg.sofia.uni.fmi.mjt.bookmarks.manager.service.Dispatcher;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+class ServerTest {
+    private static final String PASSWORD = "R3@llY$tr0ng";
+    private static final int READ_TIMEOUT_MILLIS = 5000;
+    private static final int SMALL_RECEIVE_BUFFER = 4096;
+
+    @TempDir
+    Path dir;
+
+    Server server;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        if (server != null && server.isAlive()) {
+            server.stopServer();
+            server.join(READ_TIMEOUT_MILLIS);
+        }
+    }
+
+    private void start(String settings) throws InterruptedException {
+        ServerConfig config = ServerConfig.newCustomServerConfig(new StringReader(
+                "{\"hostname\": \"localhost\", \"port\": 0, \"linkCheckIntervalMillis\": 0, " + settings + "}"));
+
+        server = new Server(config, dir.resolve("bookmarks.json").toString(), dir.resolve("users.json").toString());
+        server.start();
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(READ_TIMEOUT_MILLIS);
+        while (server.localPort() < 0) {
+            if (System.nanoTime() > deadline) {
+                fail("The server should start listening.");
+            }
+
+            Thread.sleep(10);
+        }
+    }
+
+    private Socket connect() throws IOException {
+        Socket socket = new Socket();
+        socket.setReceiveBufferSize(SMALL_RECEIVE_BUFFER);
+        socket.connect(new InetSocketAddress("localhost", server.localPort()));
+        socket.setSoTimeout(READ_TIMEOUT_MILLIS);
+
+        return socket;
+    }
+
+    /**
+     * Sends all the lines in a single write, so the server receives them pipelined.
+     */
+    private static void send(Socket socket, List<String> lines) throws IOException {
+        String joined = String.join("\n", lines) + "\n";
+
+        socket.getOutputStream().write(joined.getBytes(StandardCharsets.UTF_8));
+        socket.getOutputStream().flush();
+    }
+
+    private static Frame read(Socket socket) throws IOException {
+        DataInputStream in = new DataInputStream(socket.getInputStream());
+
+        int sequence = in.readInt();
+        byte[] payload = new byte[in.readInt()];
+        in.readByte();
+        in.readFully(payload);
+
+        return new Frame(sequence, new String(payload, StandardCharsets.UTF_8));
+    }
+
+    private record Frame(int sequence, String payload) {
+    }
+
+    @Test
+    void pipelinedCommandsAreAnsweredInOrder() throws IOException, InterruptedException {
+        start("\"reactorThreads\": 2, \"workerThreads\": 2");
+
+        List<String> commands = List.of(
+                "register pipelined " + PASSWORD,
+                "login pipelined " + PASSWORD,
+                "new-group first",
+                "new-group second",
+                "new-group first",
+                "logout");
+        List<String> expected = List.of(
+                "User pipelined successfully registered.",
+                "User pipelined logged in.",
+                "Group with name first is created.",
+                "Group with name second is created.",
+                "Group with name first already exists.",
+                "User pipelined logged out.");
+
+        try (Socket first = connect(); Socket second = connect()) {
+            send(first, commands);
+            send(second, List.of("help", "help"));
+
+            for (int i = 0; i < expected.size(); i++) {
+                Frame frame = read(first);
+
+                assertEquals(i, frame.sequence(), "The responses should carry the sequence of their requests.");
+                assertEquals(expected.get(i), frame.payload(), "The responses should come back in request order.");
+            }
+
+            assertEquals(0, read(second).sequence(), "Every connection should have its own sequence.");
+            assertEquals(1, read(second).sequence(), "Every connection should have its own sequence.");
+        }
+    }
+
+    @Test
+    void slowReaderStopsTheCommandsOfItsConnection() throws IOException, InterruptedException {
+        start("\"maxInFlightCommands\": 0, \"maxOutboundBytes\": 65536");
+
+        try (Socket socket = connect()) {
+            send(socket, List.of("register slow " + PASSWORD, "login slow " + PASSWORD));
+            read(socket);
+            read(socket);
+
+            Bookmarks bookmarks = Dispatcher.bookmarkStorage().hook("slow");
+            bookmarks.newGroup("big");
+            for (int i = 0; i < 1000; i++) {
+                bookmarks.addBookmark("big", new Bookmark("Page number " + i,
+                        new URL("https://slow-reader.example.com/pages/" + i), List.of("slow", "reader")));
+            }
+
+            List<String> commands = new ArrayList<>(Collections.nCopies(100, "list --group-name big"));
+            commands.add("new-group marker");
+            send(socket, commands);
+
+            Thread.sleep(2000);
+            assertFalse(bookmarks.contains("marker"),
+                    "A connection whose outbound queue is full should not execute more commands.");
+
+            for (int i = 0; i < commands.size(); i++) {
+                assertEquals(i + 2, read(socket).sequence(), "The responses should come back in request order.");
+            }
+            assertTrue(bookmarks.contains("marker"), "The commands should resume once the client reads.");
+        }
+    }
+
+    @Test
+    void idleConnectionIsClosedAndReleased() throws IOException, InterruptedException {
+        start("\"maxConnections\": 1, \"sessionTimeoutMillis\": 1000");
+
+        int sessions = Dispatcher.authManager().sessionCount();
+
+        try (Socket idle = connect()) {
+            send(idle, List.of("register idle " + PASSWORD, "login idle " + PASSWORD));
+            read(idle);
+            read(idle);
+            assertEquals(sessions + 1, Dispatcher.authManager().sessionCount(), "The client should be logged in.");
+
+            try (Socket rejected = connect()) {
+                assertEquals("The server is at capacity. Please try again later.", read(rejected).payload(),
+                        "A client over the connection limit should be rejected.");
+            }
+
+            assertEquals(-1, idle.getInputStream().read(), "An idle connection should be closed by the server.");
+            assertEquals(sessions, Dispatcher.authManager().sessionCount(),
+                    "The session of a closed connection should be released.");
+        }
+
+        try (Socket next = connect()) {
+            send(next, List.of("login idle " + PASSWORD));
+            assertEquals("User idle logged in.", read(next).payload(),
+                    "The slot of a closed connection should be released.");
+        }
+    }
+
+    @Test
+    void gracefulShutdownAnswersTheCommandsAndStoresTheData() throws IOException, InterruptedException {
+        start("\"reactorThreads\": 2, \"workerThreads\": 2");
+
+        List<String> commands = new ArrayList<>(List.of("register graceful " + PASSWORD, "login graceful " + PASSWORD));
+        for (int i = 0; i < 50; i++) {
+            commands.add("new-group shutdown-" + i);
+        }
+
+        try (Socket socket = connect()) {
+            send(socket, commands);
+            read(socket);
+
+            server.shutdownGracefully();
+
+            for (int i = 1; i < commands.size(); i++) {
+                assertEquals(i, read(socket).sequence(),
+                        "The commands received before the shutdown should be answered.");
+            }
+            assertEquals(-1, socket.getInputStream().read(), "The connection should be closed once it is answered.");
+        }
+
+        server.join(READ_TIMEOUT_MILLIS);
+        assertFalse(server.isAlive(), "The server should stop once the commands are answered.");
+
+        assertTrue(Files.readString(dir.resolve("bookmarks.json")).contains("shutdown-49"),
+                "The changes of the answered commands should be stored.");
+        assertTrue(Files.readString(dir.resolve("users.json")).contains("graceful"),
+                "The registered users should be stored.");
+    }
+}
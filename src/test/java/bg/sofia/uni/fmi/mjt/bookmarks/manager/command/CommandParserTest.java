@@ -1,12 +1,16 @@
 package bg.sofia.uni.fmi.mjt.bookmarks.manager.command;
 
+import bg.sofia.uni.fmi.mjt.bookmarks.manager.command.bookmark.BatchCommand;
+import bg.sofia.uni.fmi.mjt.bookmarks.manager.entity.BatchOperation;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.nio.channels.SocketChannel;
+import java.util.List;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -543,4 +547,87 @@ class CommandParserTest {
 
         assertEquals(CommandType.UNKNOWN, cmd1.getType(), message);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testSearchByQueryCommand() {
+        String line = "search --query java AND (nio OR netty)";
+
+        Command cmd = CommandParser.of(line, sc);
+
+        assertEquals(CommandType.SEARCH, cmd.getType(), "The command search exists and it's valid. The flag --query is set.");
+
+        assertEquals("--query", cmd.getArgs().get(1), "The second argument is the flag --query.");
+        assertEquals(List.of("java", "AND", "(nio", "OR", "netty)"), cmd.getArgs().subList(2, cmd.getArgs().size()),
+                "The rest of the arguments are the query.");
+        assertEquals(CommandType.UNKNOWN, CommandParser.of("search --query", sc).getType(),
+                "The line does not match the exact \"search --query <query>\" command invocation string");
+    }
+
+    @Test
+    public void testSearchRankedCommand() {
+        String line = "search --ranked java nio";
+
+        Command cmd = CommandParser.of(line, sc);
+
+        assertEquals(CommandType.SEARCH, cmd.getType(), "The command search exists and it's valid. The flag --ranked is set.");
+        assertEquals("--ranked", cmd.getArgs().get(1), "The second argument is the flag --ranked.");
+        assertEquals(CommandType.UNKNOWN, CommandParser.of("search --ranked", sc).getType(),
+                "The line does not match the exact \"search --ranked <term>\" command invocation string");
+    }
+
+    @Test
+    public void testCommandParseWithBlankLine() {
+        Command cmd1 = CommandParser.of("", sc);
+        Command cmd2 = CommandParser.of(" \t ", sc);
+
+        assertEquals(CommandType.UNKNOWN, cmd1.getType(), "An empty line should be parsed to unknown.");
+        assertEquals(CommandType.UNKNOWN, cmd2.getType(), "A blank line should be parsed to unknown.");
+    }
+
+    @Test
+    public void testCommandParseWithLeadingWhitespaces() {
+        String line = " \t login  username\tpassword ";
+
+        Command cmd = CommandParser.of(line, sc);
+
+        assertEquals(CommandType.LOGIN, cmd.getType(), "Leading whitespaces should be skipped when parsing.");
+        assertEquals(3, cmd.getArgs().size(), "Three arguments should be passed (login, <username>, <password>).");
+        assertEquals("username", cmd.getArgs().get(1), "The second argument is the username.");
+        assertEquals("password", cmd.getArgs().get(2), "The third argument is the password.");
+    }
+
+    @Test
+    public void testBatchCommand() {
+        String line = "batch new-group news ; add-to news https://google.com --shorten ; " +
+                      "remove-from news https://yahoo.com ; list";
+
+        Command cmd = CommandParser.of(line, sc);
+
+        assertEquals(CommandType.BATCH, cmd.getType(), "The line is a valid batch command invocation.");
+        assertEquals(List.of(
+                        BatchOperation.newGroup("news"),
+                        BatchOperation.addTo("news", "https://google.com", true),
+                        BatchOperation.removeFrom("news", "https://yahoo.com"),
+                        BatchOperation.invalid()),
+                ((BatchCommand) cmd).getOperations(),
+                "Every sub-command should be parsed to an operation, the ones which may not be batched to invalid.");
+    }
+
+    @Test
+    public void testBatchCommandInvalid() {
+        String message = "A batch without sub-commands should be parsed to unknown.";
+
+        assertEquals(CommandType.UNKNOWN, CommandParser.of("batch", sc).getType(), message);
+        assertEquals(CommandType.UNKNOWN, CommandParser.of("batch ; ;", sc).getType(), message);
+    }
+
+    @Test
+    public void testTokenize() {
+        assertArrayEquals(new String[] {"add-to", "group", "https://google.com"},
+                CommandParser.tokenize("add-to \t group\u000Bhttps://google.com\r"),
+                "The line should be split on every kind of whitespace.");
+        assertArrayEquals(new String[] {"търсене"}, CommandParser.tokenize("търсене"),
+                "A line without whitespaces should be a single token.");
+        assertEquals(0, CommandParser.tokenize("   ").length, "A blank line should have no tokens.");
+    }
+}
@@ -0,0 +1,57 @@
+package bg.sofia.uni.fmi.mjt.bookmarks.manager.command.bookmark;
+
+import bg.sofia.uni.fmi.mjt.bookmarks.manager.command.Command;
+import bg.sofia.uni.fmi.mjt.bookmarks.manager.command.user.LoginCommand;
+import bg.sofia.uni.fmi.mjt.bookmarks.manager.command.user.RegisterCommand;
+import bg.sofia.uni.fmi.mjt.bookmarks.manager.entity.BatchOperation;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.nio.channels.SocketChannel;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class BatchCommandTest {
+
+    @Test
+    void batchUnauthorised() {
+        SocketChannel client = Mockito.mock(SocketChannel.class);
+
+        Command batch = new BatchCommand(client, List.of(BatchOperation.newGroup("name")));
+
+        assertEquals(
+                "Please login to use this feature." + System.lineSeparator() +
+                "If you don't have account use the register command"
+                , batch.execute(),
+                "Should deny access for unauthorised users."
+        );
+    }
+
+    @Test
+    void batchAuthorised() {
+        SocketChannel client = Mockito.mock(SocketChannel.class);
+
+        String username = "batchExec";
+        String password = "R3@llY$tr0ng";
+
+        Command register = new RegisterCommand("register", username, password);
+        Command login = new LoginCommand(client, "login", username, password);
+        Command batch = new BatchCommand(client, List.of(
+                BatchOperation.newGroup("first"),
+                BatchOperation.newGroup("first"),
+                BatchOperation.removeFrom("second", "https://google.com")
+        ));
+
+        register.execute();
+        login.execute();
+
+        assertEquals(
+                "OK ERROR ERROR" + System.lineSeparator() +
+                "#2 Group with name first already exists." + System.lineSeparator() +
+                "#3 A bookmark group with name second does not exist."
+                , batch.execute(),
+                "Should be able to access the batch feature"
+        );
+    }
+}
@@ -0,0 +1,66 @@
+package bg.sofia.uni.fmi.mjt.bookmarks.manager.network;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BufferPoolTest {
+
+    @Test
+    void acquireDirectBuffer() {
+        BufferPool pool = new BufferPool(32, 2, true);
+
+        ByteBuffer buffer = pool.acquire();
+
+        assertTrue(buffer.isDirect(), "The pool is configured to allocate direct buffers.");
+        assertEquals(32, buffer.capacity(), "The buffers should have the configured chunk size.");
+    }
+
+    @Test
+    void acquireReusesReleasedBuffer() {
+        BufferPool pool = new BufferPool(32, 2, false);
+
+        ByteBuffer buffer = pool.acquire();
+        buffer.put((byte) 1);
+        pool.release(buffer);
+
+        ByteBuffer reused = pool.acquire();
+
+        assertSame(buffer, reused, "A released buffer should be reused.");
+        assertEquals(0, reused.position(), "A reused buffer should be cleared.");
+        assertEquals(0, pool.pooledCount(), "The reused buffer should no longer be pooled.");
+    }
+
+    @Test
+    void releaseBeyondMaximumIsDropped() {
+        BufferPool pool = new BufferPool(32, 2, false);
+
+        pool.release(pool.acquire());
+        pool.release(pool.acquire());
+        pool.release(ByteBuffer.allocate(32));
+
+        assertEquals(2, pool.pooledCount(), "No more than the maximum number of buffers should be pooled.");
+    }
+
+    @Test
+    void releaseForeignBufferIsIgnored() {
+        BufferPool pool = new BufferPool(32, 2, false);
+
+        pool.release(ByteBuffer.allocate(64));
+        pool.release(ByteBuffer.allocateDirect(32));
+        pool.release(null);
+
+        assertEquals(0, pool.pooledCount(), "Buffers of a different size or kind should not be pooled.");
+    }
+
+    @Test
+    void createWithInvalidChunkSize() {
+        assertThrows(IllegalArgumentException.class, () -> new BufferPool(0, 2, false),
+                "The chunk size should be positive.");
+    }
+}
@@ -0,0 +1,39 @@
+package bg.sofia.uni.fmi.mjt.bookmarks.manager.network;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConnectionLimiterTest {
+
+    @Test
+    void tryAcquireBeyondMaximum() {
+        ConnectionLimiter limiter = new ConnectionLimiter(2);
+
+        assertTrue(limiter.tryAcquire(), "The first connection should be admitted.");
+        assertTrue(limiter.tryAcquire(), "The second connection should be admitted.");
+        assertFalse(limiter.tryAcquire(), "A connection beyond the maximum should not be admitted.");
+        assertEquals(2, limiter.openConnections(), "A rejected connection should not take a slot.");
+    }
+
+    @Test
+    void tryAcquireAfterRelease() {
+        ConnectionLimiter limiter = new ConnectionLimiter(1);
+
+        assertTrue(limiter.tryAcquire(), "The first connection should be admitted.");
+        limiter.release();
+
+        assertTrue(limiter.tryAcquire(), "A released slot should be given to the next connection.");
+    }
+
+    @Test
+    void tryAcquireWithoutLimit() {
+        ConnectionLimiter limiter = new ConnectionLimiter(0);
+
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(limiter.tryAcquire(), "Every connection should be admitted when there is no limit.");
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package bg.sofia.uni.fmi.mjt.bookmarks.manager.network;
+
+import bg.sofia.uni.fmi.mjt.bookmarks.manager.exception.FrameTooLongException;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LineFrameDecoderTest {
+
+    private static ReadableByteChannel channelOf(String content) {
+        return Channels.newChannel(new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    void decodeSingleFrame() throws IOException {
+        LineFrameDecoder decoder = new LineFrameDecoder(new BufferPool(16, 4, false), 64);
+
+        decoder.readFrom(channelOf("help\n"));
+
+        assertEquals(List.of("help"), decoder.decode(), "A single complete line should be decoded.");
+    }
+
+    @Test
+    void decodeCoalescedFrames() throws IOException {
+        LineFrameDecoder decoder = new LineFrameDecoder(new BufferPool(64, 4, false), 64);
+
+        decoder.readFrom(channelOf("login user pass\r\nlist\nhelp\n"));
+
+        assertEquals(List.of("login user pass", "list", "help"), decoder.decode(),
+                "Several lines received in one read should be decoded separately.");
+    }
+
+    @Test
+    void decodePartialFrame() throws IOException {
+        LineFrameDecoder decoder = new LineFrameDecoder(new BufferPool(64, 4, false), 64);
+
+        decoder.readFrom(channelOf("new-gr"));
+        assertTrue(decoder.decode().isEmpty(), "An incomplete line should not be decoded.");
+
+        decoder.readFrom(channelOf("oup name\nlis"));
+        assertEquals(List.of("new-group name"), decoder.decode(), "A line spanning two reads should be joined.");
+
+        decoder.readFrom(channelOf("t\n"));
+        assertEquals(List.of("list"), decoder.decode(), "The remaining tail should be kept for the next read.");
+    }
+
+    @Test
+    void decodeMultiByteCharacterSplitBetweenReads() throws IOException {
+        byte[] bytes = "търсене\n".getBytes(StandardCharsets.UTF_8);
+        LineFrameDecoder decoder = new LineFrameDecoder(new BufferPool(64, 4, false), 64);
+
+        decoder.readFrom(Channels.newChannel(new ByteArrayInputStream(bytes, 0, 3)));
+        decoder.readFrom(Channels.newChannel(new ByteArrayInputStream(bytes, 3, bytes.length - 3)));
+
+        assertEquals(List.of("търсене"), decoder.decode(), "UTF-8 characters split between reads should be decoded.");
+    }
+
+    @Test
+    void decodeFrameLongerThanInitialCapacity() throws IOException {
+        LineFrameDecoder decoder = new LineFrameDecoder(new BufferPool(4, 4, false), 64);
+        ReadableByteChannel channel = channelOf("add-to group https://google.com\n");
+
+        while (decoder.readFrom(channel) > 0) {
+            // keep reading until the channel is drained
+        }
+
+        assertEquals(List.of("add-to group https://google.com"), decoder.decode(),
+                "The accumulator should grow to fit a longer line.");
+    }
+
+    @Test
+    void decodeFromDirectBuffers() throws IOException {
+        LineFrameDecoder decoder = new LineFrameDecoder(new BufferPool(16, 4, true), 64);
+
+        decoder.readFrom(channelOf("list\n"));
+
+        assertEquals(List.of("list"), decoder.decode(), "Frames should be decoded from direct buffers.");
+    }
+
+    @Test
+    void growDirectAccumulatorWithoutPoolingIt() throws IOException {
+        BufferPool pool = new BufferPool(4, 4, true);
+        LineFrameDecoder decoder = new LineFrameDecoder(pool, 64);
+        ReadableByteChannel channel = channelOf("search --tags java\n");
+
+        while (decoder.readFrom(channel) > 0) {
+            // keep reading until the channel is drained
+        }
+
+        assertEquals(List.of("search --tags java"), decoder.decode(),
+                "A direct accumulator should grow to fit a longer line.");
+        assertEquals(1, pool.pooledCount(),
+                "Only the buffer borrowed from the pool should be returned to it.");
+    }
+
+    @Test
+    void releaseAccumulatorWhenIdle() throws IOException {
+        BufferPool pool = new BufferPool(16, 4, false);
+        LineFrameDecoder decoder = new LineFrameDecoder(pool, 64);
+
+        decoder.readFrom(channelOf("help\nlo"));
+        decoder.decode();
+        assertEquals(0, pool.pooledCount(), "The accumulator should be kept while a frame is incomplete.");
+
+        decoder.readFrom(channelOf("gout\n"));
+        decoder.decode();
+        assertEquals(1, pool.pooledCount(), "The accumulator should be returned once all frames are decoded.");
+    }
+
+    @Test
+    void decodeFrameLongerThanMaximum() {
+        LineFrameDecoder decoder = new LineFrameDecoder(new BufferPool(4, 4, false), 8);
+        ReadableByteChannel channel = channelOf("a very long line without terminator");
+
+        assertThrows(FrameTooLongException.class, () -> {
+            while (decoder.readFrom(channel) > 0) {
+                decoder.decode();
+            }
+        }, "A line longer than the maximum frame length should be rejected.");
+    }
+}
@@ -0,0 +1,146 @@
+package bg.sofia.uni.fmi.mjt.bookmarks.manager.network;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ResponseFrameTest {
+
+    private static ByteBuffer bytesOf(List<ByteBuffer> frame) {
+        ByteBuffer payload = ByteBuffer.allocate(frame.stream().mapToInt(ByteBuffer::remaining).sum());
+        frame.forEach(chunk -> payload.put(chunk.duplicate()));
+        payload.flip();
+        payload.position(ResponseFrame.HEADER_SIZE);
+
+        return payload;
+    }
+
+    private static String payloadOf(List<ByteBuffer> frame) {
+        return StandardCharsets.UTF_8.decode(bytesOf(frame)).toString();
+    }
+
+    private static String inflatedPayloadOf(List<ByteBuffer> frame) throws DataFormatException {
+        ByteBuffer compressed = bytesOf(frame);
+        ByteBuffer inflated = ByteBuffer.allocate(1024 * 1024);
+
+        Inflater inflater = new Inflater();
+        inflater.setInput(compressed);
+        inflater.inflate(inflated);
+        inflater.end();
+
+        return StandardCharsets.UTF_8.decode(inflated.flip()).toString();
+    }
+
+    private static byte flagsOf(List<ByteBuffer> frame) {
+        return frame.get(0).get(2 * Integer.BYTES);
+    }
+
+    @Test
+    void encodeSmallResponse() {
+        List<ByteBuffer> frame = ResponseFrame.encode(7, "OK", new BufferPool(16, 4, false));
+
+        assertEquals(1, frame.size(), "A small response should fit in a single chunk with the header.");
+        assertEquals(7, frame.get(0).getInt(0), "The header should start with the request sequence number.");
+        assertEquals(2, frame.get(0).getInt(4), "The header should contain the payload length in bytes.");
+        assertEquals(0, flagsOf(frame), "A response which is not compressed should have no flags.");
+        assertEquals("OK", payloadOf(frame), "The payload should contain the response.");
+    }
+
+    @Test
+    void encodeLargeResponseInChunks() {
+        String response = "TITLE: bookmark".repeat(1000);
+
+        List<ByteBuffer> frame = ResponseFrame.encode(0, response, new BufferPool(64, 4, true));
+
+        assertTrue(frame.stream().allMatch(chunk -> chunk.remaining() <= 64),
+                "No chunk should be bigger than the chunk size.");
+        assertEquals(response.length(), frame.get(0).getInt(4), "The header should contain the payload length.");
+        assertEquals(response, payloadOf(frame), "The chunks should contain the whole response in order.");
+    }
+
+    @Test
+    void encodeMultiByteCharacters() {
+        String response = "Отметки".repeat(100);
+
+        List<ByteBuffer> frame = ResponseFrame.encode(0, response, new BufferPool(13, 4, false));
+
+        assertEquals(response.getBytes(StandardCharsets.UTF_8).length, frame.get(0).getInt(4),
+                "The header should contain the length in bytes, not in characters.");
+        assertEquals(response, payloadOf(frame), "Characters should not be split between chunks incorrectly.");
+    }
+
+    @Test
+    void encodeEmptyResponse() {
+        List<ByteBuffer> frame = ResponseFrame.encode(0, "", new BufferPool(16, 4, false));
+
+        assertEquals(1, frame.size(), "An empty response should consist only of the header.");
+        assertEquals(ResponseFrame.HEADER_SIZE, frame.get(0).remaining(), "Only the header should be written.");
+        assertEquals(0, frame.get(0).getInt(4), "The payload length of an empty response should be 0.");
+    }
+
+    @Test
+    void encodeLargeResponseCompressed() throws DataFormatException {
+        String response = ("TITLE: bookmark" + System.lineSeparator() + "LINK: https://example.com").repeat(1000);
+
+        List<ByteBuffer> frame = ResponseFrame.encode(3, response, new BufferPool(64, 4, false), 1024);
+
+        int length = frame.get(0).getInt(4);
+
+        assertEquals(3, frame.get(0).getInt(0), "The header should start with the request sequence number.");
+        assertEquals(ResponseFrame.FLAG_DEFLATE, flagsOf(frame), "A large response should be flagged as compressed.");
+        assertTrue(length * 5 < response.length(), "A repetitive response should compress at least 5 times.");
+        assertEquals(length, bytesOf(frame).remaining(), "The header should contain the compressed length.");
+        assertEquals(response, inflatedPayloadOf(frame), "The inflated payload should contain the response.");
+    }
+
+    @Test
+    void encodeMultiByteCharactersCompressedInSmallChunks() throws DataFormatException {
+        String response = "Отметки: https://example.com".repeat(500);
+
+        List<ByteBuffer> frame = ResponseFrame.encode(0, response, new BufferPool(13, 4, true), 1024);
+
+        assertEquals(ResponseFrame.FLAG_DEFLATE, flagsOf(frame), "A large response should be flagged as compressed.");
+        assertEquals(response, inflatedPayloadOf(frame),
+                "A response encoded one small chunk at a time should inflate back to the whole response.");
+    }
+
+    @Test
+    void encodeResponseBelowCompressionThreshold() {
+        String response = "TITLE: bookmark".repeat(10);
+
+        List<ByteBuffer> frame = ResponseFrame.encode(0, response, new BufferPool(64, 4, false), 1024);
+
+        assertEquals(0, flagsOf(frame), "A response below the threshold should not be compressed.");
+        assertEquals(response, payloadOf(frame), "The payload should contain the response.");
+    }
+
+    @Test
+    void encodeIncompressibleResponse() {
+        List<ByteBuffer> frame = ResponseFrame.encode(0, "OK", new BufferPool(64, 4, false), 1);
+
+        assertEquals(0, flagsOf(frame), "A response which does not get smaller should not be compressed.");
+        assertEquals("OK", payloadOf(frame), "The payload should contain the response.");
+    }
+
+    @Test
+    void encodeCompressedAfterReleasingTheDeflater() throws DataFormatException {
+        String response = "TITLE: bookmark".repeat(1000);
+        BufferPool pool = new BufferPool(64, 4, false);
+
+        ResponseFrame.encode(0, response, pool, 1024);
+        ResponseFrame.releaseDeflater();
+        ResponseFrame.releaseDeflater();
+
+        List<ByteBuffer> frame = ResponseFrame.encode(1, response, pool, 1024);
+
+        assertEquals(ResponseFrame.FLAG_DEFLATE, flagsOf(frame), "A released deflater should be replaced.");
+        assertEquals(response, inflatedPayloadOf(frame), "The inflated payload should contain the response.");
+    }
+}
@@ -0,0 +1,105 @@
+package bg.sofia.uni.fmi.mjt.bookmarks.manager.network;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TimingWheelTest {
+
+    @Test
+    void advanceExpiresDueItemsOnly() {
+        TimingWheel<String> wheel = new TimingWheel<>(10, 8, 0);
+        List<String> expired = new ArrayList<>();
+
+        wheel.schedule("first", 25, 0);
+        wheel.schedule("second", 55, 0);
+
+        wheel.advance(20, expired::add);
+        assertTrue(expired.isEmpty(), "No item is due yet.");
+
+        wheel.advance(30, expired::add);
+        assertEquals(List.of("first"), expired, "Only the first item should be due.");
+        assertEquals(1, wheel.size(), "The second item should still be scheduled.");
+    }
+
+    @Test
+    void advanceExpiresItemsBeyondOneRotation() {
+        TimingWheel<String> wheel = new TimingWheel<>(10, 4, 0);
+        List<String> expired = new ArrayList<>();
+
+        wheel.schedule("late", 100, 0);
+
+        wheel.advance(50, expired::add);
+        assertTrue(expired.isEmpty(), "An item sharing a bucket with an earlier tick should wait for its round.");
+
+        wheel.advance(100, expired::add);
+        assertEquals(List.of("late"), expired, "The item should expire once its deadline is reached.");
+    }
+
+    @Test
+    void advanceAfterLongPauseExpiresEverything() {
+        TimingWheel<String> wheel = new TimingWheel<>(10, 4, 0);
+        List<String> expired = new ArrayList<>();
+
+        wheel.schedule("a", 10, 0);
+        wheel.schedule("b", 70, 0);
+
+        wheel.advance(1000, expired::add);
+
+        assertEquals(2, expired.size(), "Every overdue item should expire after a pause longer than the wheel.");
+        assertTrue(wheel.isEmpty(), "No item should be left in the wheel.");
+    }
+
+    @Test
+    void cancelledTimeoutDoesNotExpire() {
+        TimingWheel<String> wheel = new TimingWheel<>(10, 8, 0);
+        List<String> expired = new ArrayList<>();
+
+        TimingWheel.Timeout<String> timeout = wheel.schedule("cancelled", 10, 0);
+        wheel.schedule("kept", 10, 0);
+
+        assertTrue(timeout.cancel(), "A scheduled timeout should be cancelled.");
+        assertFalse(timeout.cancel(), "A cancelled timeout should not be cancelled twice.");
+
+        wheel.advance(10, expired::add);
+
+        assertEquals(List.of("kept"), expired, "Only the timeout which is not cancelled should expire.");
+    }
+
+    @Test
+    void expiredItemCanBeRescheduled() {
+        TimingWheel<String> wheel = new TimingWheel<>(10, 8, 0);
+        List<String> expired = new ArrayList<>();
+
+        wheel.schedule("item", 10, 0);
+        wheel.advance(10, item -> {
+            expired.add(item);
+            wheel.schedule(item, 10, 10);
+        });
+
+        assertEquals(1, expired.size(), "A rescheduled item should not expire in the same advance.");
+        assertEquals(1, wheel.size(), "The item should be scheduled again.");
+    }
+
+    @Test
+    void millisUntilNextTick() {
+        TimingWheel<String> wheel = new TimingWheel<>(10, 8, 5);
+
+        assertEquals(10, wheel.millisUntilNextTick(5), "A full tick is left at a tick boundary.");
+        assertEquals(3, wheel.millisUntilNextTick(22), "The time left until the next tick boundary.");
+    }
+
+    @Test
+    void createWithInvalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> new TimingWheel<String>(0, 8, 0),
+                "The tick duration must be positive.");
+        assertThrows(IllegalArgumentException.class, () -> new TimingWheel<String>(10, 0, 0),
+                "The wheel size must be positive.");
+    }
+}
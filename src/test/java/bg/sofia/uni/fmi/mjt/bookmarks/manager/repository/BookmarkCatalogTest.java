@@ -0,0 +1,106 @@
+package bg.sofia.uni.fmi.mjt.bookmarks.manager.repository;
+
+import bg.sofia.uni.fmi.mjt.bookmarks.manager.entity.Bookmark;
+import bg.sofia.uni.fmi.mjt.bookmarks.manager.entity.LinkStatus;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringReader;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BookmarkCatalogTest {
+
+    BookmarkStorage storage = new BookmarkStorage();
+    BookmarkCatalog catalog = storage.catalog();
+
+    @Test
+    void usersShareTheCanonicalBookmark() throws MalformedURLException {
+        Bookmark first = new Bookmark("google", new URL("https://google.com/"), List.of("search"));
+        Bookmark second = new Bookmark("google", new URL("HTTPS://Google.com:443/#top"), List.of("search"));
+
+        Bookmarks alice = storage.hook("alice");
+        Bookmarks bob = storage.hook("bob");
+
+        alice.newGroup("group");
+        bob.newGroup("group");
+        alice.addBookmark("group", first);
+        bob.addBookmark("group", second);
+
+        Bookmark shared = bob.getGroup("group").iterator().next();
+
+        assertEquals(second.url().toString(), shared.url().toString(),
+                "A url bookmarked by another user should keep the user's spelling.");
+        assertEquals(first.tags(), shared.tags(), "A url bookmarked by another user should share its tags.");
+        assertSame(first, alice.getGroup("group").iterator().next(),
+                "The first user to bookmark a url should refer to the canonical bookmark.");
+        assertEquals(1, catalog.size(), "The urls differing only in their form should share a bookmark.");
+        assertEquals(2, catalog.references("https://google.com"), "Both users should refer to the bookmark.");
+
+        alice.removeBookmark("https://google.com/");
+
+        assertEquals(1, catalog.references("https://google.com/"), "Only the second user should refer to the bookmark.");
+
+        storage.remove("bob");
+
+        assertTrue(catalog.find("https://google.com/").isEmpty(),
+                "The bookmark should be dropped when no user refers to it.");
+    }
+
+    @Test
+    void loadedBookmarksAreShared() {
+        String bookmark = "{\"title\":\"google\",\"url\":\"https://google.com/\",\"tags\":[\"search\"]}";
+        String user = "{\"groups\":{\"group\":[" + bookmark + "]},\"urlMap\":{\"https://google.com/\":" + bookmark + "}}";
+
+        storage.load(new StringReader("{\"alice\":" + user + ",\"bob\":" + user + "}"));
+
+        Bookmarks alice = storage.get("alice").orElseThrow();
+        Bookmarks bob = storage.get("bob").orElseThrow();
+
+        assertSame(alice.getGroup("group").iterator().next(), bob.getGroup("group").iterator().next(),
+                "The loaded bookmarks of the same url should be shared by the users.");
+        assertEquals(2, catalog.references("https://google.com/"), "Both users should refer to the bookmark.");
+        assertTrue(catalog.fetchedAt("https://google.com/").isPresent(), "The time of the fetch should be kept.");
+    }
+
+    @Test
+    void urlsAfterAndHealth() throws MalformedURLException {
+        Bookmarks bookmarks = storage.hook("alice");
+        bookmarks.newGroup("group");
+        bookmarks.addBookmark("group", new Bookmark("b", new URL("https://b.com/"), List.of()));
+        bookmarks.addBookmark("group", new Bookmark("a", new URL("https://a.com/"), List.of()));
+        bookmarks.addBookmark("group", new Bookmark("c", new URL("https://c.com/"), List.of()));
+
+        assertEquals(List.of("https://a.com/", "https://b.com/"), catalog.urlsAfter(null, 2),
+                "The first page should hold the first urls in order.");
+        assertEquals(List.of("https://c.com/"), catalog.urlsAfter("https://b.com/", 2),
+                "The next page should start after the cursor.");
+
+        catalog.record("https://A.com", LinkStatus.of("https://a.com/", 404), Instant.EPOCH);
+
+        assertTrue(catalog.status("https://a.com/").orElseThrow().isBroken(), "The recorded health should be kept.");
+        assertEquals(Instant.EPOCH, catalog.checkedAt("https://a.com/").orElseThrow(),
+                "The time of the check should be kept.");
+
+        bookmarks.removeBookmark("https://a.com/");
+
+        assertEquals(List.of("https://b.com/", "https://c.com/"), catalog.urlsAfter(null, 5),
+                "A url nobody refers to should not be walked.");
+        assertTrue(catalog.status("https://a.com/").isEmpty(), "The health of a dropped url should be forgotten.");
+    }
+
+    @Test
+    void normalize() {
+        assertEquals("https://google.com/search?q=java",
+                BookmarkCatalog.normalize("HTTPS://Google.com:443/search?q=java#results"),
+                "The scheme and the host should be lower-cased and the default port and the fragment dropped.");
+        assertEquals("http://google.com:8080/", BookmarkCatalog.normalize("http://google.com:8080"),
+                "A port which is not the default one should be kept and an empty path should become /.");
+        assertEquals("not a url", BookmarkCatalog.normalize("not a url"), "An invalid url should be kept as it is.");
+    }
+}
@@ -43,6 +43,21 @@ class BookmarkStorageTest {
         assertEquals("{\"username\":{\"groups\":{},\"urlMap\":{}}}", writer.toString(), message);
     }
 
+    @Test
+    void loadAndStoreBookmarks() {
+        String message = "The bookmarks should be stored with their tags as strings, just as they are loaded.";
+        String json = "{\"username\":{\"groups\":{\"group\":[{\"title\":\"google\",\"url\":\"https://google.com/\"," +
+                      "\"tags\":[\"search\",\"mail\"]}]},\"urlMap\":{\"https://google.com/\":{\"title\":\"google\"," +
+                      "\"url\":\"https://google.com/\",\"tags\":[\"search\",\"mail\"]}}}}";
+
+        StringWriter writer = new StringWriter();
+
+        storage.load(new StringReader(json));
+        storage.store(writer);
+
+        assertEquals(json, writer.toString(), message);
+    }
+
     @Test
     void storeWithNullWriter() {
         String message = "The provided writer is null. Exception should be thrown.";
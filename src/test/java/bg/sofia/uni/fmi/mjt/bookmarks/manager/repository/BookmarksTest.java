@@ -0,0 +1,214 @@
+package bg.sofia.uni.fmi.mjt.bookmarks.manager.repository;
+
+import bg.sofia.uni.fmi.mjt.bookmarks.manager.entity.Bookmark;
+import bg.sofia.uni.fmi.mjt.bookmarks.manager.exception.TagQueryException;
+import bg.sofia.uni.fmi.mjt.bookmarks.manager.utils.query.TagQueryParser;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringReader;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BookmarksTest {
+
+    Bookmarks bookmarks = new Bookmarks();
+
+    @Test
+    void collectByTagsAfterChanges() throws MalformedURLException {
+        Bookmark google = new Bookmark("google", new URL("https://google.com/"), List.of("search", "mail"));
+        Bookmark yahoo = new Bookmark("yahoo", new URL("https://yahoo.com/"), List.of("search", "news"));
+
+        bookmarks.newGroup("group");
+        bookmarks.addBookmark("group", google);
+
+        assertEquals(List.of(google), bookmarks.collectByTags(List.of("search")),
+                "The only bookmark with the tag should be found.");
+
+        bookmarks.addBookmark("group", yahoo);
+
+        assertEquals(2, bookmarks.collectByTags(List.of("search")).size(),
+                "A bookmark added after the first search should be found.");
+        assertEquals(2, bookmarks.collectByTags(List.of("search", "mail", "news")).size(),
+                "A bookmark matching several tags should be found once.");
+
+        bookmarks.removeBookmark("group", "https://google.com/");
+
+        assertEquals(List.of(yahoo), bookmarks.collectByTags(List.of("search")),
+                "A removed bookmark should not be found.");
+        assertTrue(bookmarks.collectByTags(List.of("mail")).isEmpty(),
+                "A tag of a removed bookmark only should not match anything.");
+    }
+
+    @Test
+    void addBookmarkConcurrently() throws Exception {
+        final int threads = 8;
+        final int perThread = 200;
+
+        bookmarks.newGroup("group");
+        assertFalse(bookmarks.newGroup("group"), "An existing group should not be created again.");
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<?>> futures = new ArrayList<>();
+
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    URL url = new URL("https://site" + thread + ".com/" + i);
+                    bookmarks.addBookmark("group", new Bookmark("title" + thread + "-" + i, url, List.of("tag" + thread)));
+                    bookmarks.collectByTags(List.of("tag" + thread));
+                }
+                return null;
+            }));
+        }
+
+        for (Future<?> future : futures) {
+            future.get();
+        }
+
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(1, TimeUnit.SECONDS), "The executor should terminate.");
+
+        assertEquals(threads * perThread, bookmarks.getGroup("group").size(),
+                "No bookmark added concurrently should be lost.");
+        assertEquals(perThread, bookmarks.collectByTags(List.of("tag0")).size(),
+                "The tag index should hold every bookmark added concurrently.");
+    }
+
+    @Test
+    void removeBookmarkFromOneOfTheGroups() throws MalformedURLException {
+        Bookmark google = new Bookmark("google", new URL("https://google.com/"), List.of("search"));
+
+        bookmarks.newGroup("first");
+        bookmarks.newGroup("second");
+        bookmarks.addBookmark("first", google);
+        bookmarks.addBookmark("second", google);
+
+        bookmarks.removeBookmark("first", "https://google.com/");
+
+        assertTrue(bookmarks.getGroup("first").isEmpty(), "The bookmark should be removed from the first group.");
+        assertEquals(Set.of("https://google.com/"), bookmarks.collectUrls(),
+                "The bookmark should be kept while the second group has it.");
+        assertEquals(List.of(google), bookmarks.collectByTags(List.of("search")),
+                "The bookmark should still be found while the second group has it.");
+        assertThrows(IllegalStateException.class, () -> bookmarks.removeBookmark("first", "https://google.com/"),
+                "The first group does not have the bookmark anymore.");
+
+        bookmarks.removeBookmark("second", "https://google.com/");
+
+        assertTrue(bookmarks.collectUrls().isEmpty(), "The bookmark should be removed with its last group.");
+    }
+
+    @Test
+    void removeBookmarkFromEveryGroup() throws MalformedURLException {
+        Bookmark google = new Bookmark("google", new URL("https://google.com/"), List.of("search"));
+        Bookmark yahoo = new Bookmark("yahoo", new URL("https://yahoo.com/"), List.of("search"));
+
+        bookmarks.newGroup("first");
+        bookmarks.newGroup("second");
+        bookmarks.addBookmark("first", google);
+        bookmarks.addBookmark("second", google);
+        bookmarks.addBookmark("second", yahoo);
+
+        bookmarks.removeBookmark("https://google.com/");
+
+        assertTrue(bookmarks.getGroup("first").isEmpty(), "The bookmark should be removed from the first group.");
+        assertEquals(Set.of(yahoo), Set.copyOf(bookmarks.getGroup("second")),
+                "Only the bookmark should be removed from the second group.");
+        assertThrows(IllegalStateException.class, () -> bookmarks.removeBookmark("https://google.com/"),
+                "The bookmark has already been removed.");
+    }
+
+    @Test
+    void collectByQuery() throws MalformedURLException, TagQueryException {
+        bookmarks.newGroup("group");
+        bookmarks.addBookmark("group", new Bookmark("netty", new URL("https://netty.io/"), List.of("java", "netty")));
+        bookmarks.addBookmark("group", new Bookmark("nio", new URL("https://nio.com/"), List.of("java", "nio")));
+        bookmarks.addBookmark("group", new Bookmark("spring", new URL("https://spring.io/"),
+                List.of("java", "nio", "spring")));
+        bookmarks.addBookmark("group", new Bookmark("tokio", new URL("https://tokio.rs/"), List.of("rust", "nio")));
+
+        assertEquals(Set.of("netty", "nio"), titles("java AND (nio OR netty) NOT spring"),
+                "Only the bookmarks matching the whole query should be found.");
+        assertEquals(Set.of("tokio"), titles("NOT java"), "A negated tag should match every other bookmark.");
+        assertEquals(Set.of("netty", "tokio"), titles("netty OR rust"), "Either tag should match.");
+        assertTrue(titles("java AND absent").isEmpty(), "An absent tag should not match anything.");
+    }
+
+    private Set<String> titles(String query) throws TagQueryException {
+        return bookmarks.collectByQuery(TagQueryParser.parse(query)).stream()
+                .map(Bookmark::title)
+                .collect(Collectors.toSet());
+    }
+
+    @Test
+    void collectRanked() throws MalformedURLException {
+        bookmarks.newGroup("group");
+        bookmarks.addBookmark("group", new Bookmark("Java NIO tutorial", new URL("https://nio.com/"),
+                List.of("java", "nio", "buffer")));
+        bookmarks.addBookmark("group", new Bookmark("Java collections", new URL("https://collections.com/"),
+                List.of("java", "list", "map")));
+        bookmarks.addBookmark("group", new Bookmark("Rust", new URL("https://rust.com/"), List.of("rust")));
+
+        List<Bookmark> ranked = bookmarks.collectRanked(List.of("java", "NIO"), 10);
+
+        assertEquals(List.of("Java NIO tutorial", "Java collections"), ranked.stream().map(Bookmark::title).toList(),
+                "The bookmark matching more and rarer terms should be ranked first.");
+        assertEquals(1, bookmarks.collectRanked(List.of("java"), 1).size(),
+                "No more bookmarks than the limit should be collected.");
+        assertTrue(bookmarks.collectRanked(List.of("python"), 10).isEmpty(),
+                "A term of no bookmark should not match anything.");
+    }
+
+    @Test
+    void collectByTitle() throws MalformedURLException {
+        Bookmark google = new Bookmark("Google Search", new URL("https://google.com/"), List.of());
+        Bookmark duck = new Bookmark("DuckDuckGo", new URL("https://duckduckgo.com/"), List.of());
+
+        bookmarks.newGroup("group");
+        bookmarks.addBookmark("group", google);
+        bookmarks.addBookmark("group", duck);
+
+        assertEquals(List.of(google), bookmarks.collectByTitle("search"),
+                "The title should be matched ignoring the case.");
+        assertEquals(List.of(duck), bookmarks.collectByTitle("duckgo"),
+                "A part of the title spanning several trigrams should be matched.");
+        assertEquals(2, bookmarks.collectByTitle("g").size(),
+                "A title shorter than a trigram should be matched too.");
+        assertTrue(bookmarks.collectByTitle("goo duck").isEmpty(),
+                "A title which is not a part of any bookmark's title should not match anything.");
+
+        bookmarks.removeBookmark("https://google.com/");
+
+        assertTrue(bookmarks.collectByTitle("google").isEmpty(), "A removed bookmark should not be found.");
+    }
+
+    @Test
+    void collectByTagsAfterLoad() {
+        BookmarkStorage storage = new BookmarkStorage();
+
+        storage.load(new StringReader("""
+                {"username":{"groups":{"group":[{"title":"google","url":"https://google.com/","tags":["search"]}]},
+                "urlMap":{"https://google.com/":{"title":"google","url":"https://google.com/","tags":["search"]}}}}
+                """));
+
+        Bookmarks loaded = storage.get("username").orElseThrow();
+
+        assertEquals("google", loaded.collectByTags(List.of("search")).get(0).title(),
+                "The loaded bookmarks should be indexed on the first search.");
+        assertTrue(loaded.collectByTags(List.of("absent")).isEmpty(), "An absent tag should not match anything.");
+    }
+}
@@ -10,6 +10,7 @@ import org.mockito.Mockito;
 import java.nio.channels.SocketChannel;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -211,6 +212,23 @@ class AuthManagerTest {
                 "User not logged in - auth access denied.");
     }
 
+    @Test
+    void evictLoggedInSession() {
+        SocketChannel client = Mockito.mock(SocketChannel.class);
+
+        String username = "evict_user";
+
+        assertEquals(Status.OK, manager.register(username, STRONG_PW).status(),
+                "Registration should be successful. Password strong enough.");
+        assertEquals(Status.OK, manager.login(client, username, STRONG_PW).status(),
+                "Login should be successful. Credentials are valid.");
+        assertEquals(1, manager.sessionCount(), "The logged in session should be counted.");
+        assertTrue(manager.evict(client), "The session was logged in and should be evicted.");
+        assertFalse(manager.isLoggedIn(client), "An evicted session should no longer be logged in.");
+        assertEquals(0, manager.sessionCount(), "An evicted session should no longer be counted.");
+        assertFalse(manager.evict(client), "An evicted session should not be evicted twice.");
+    }
+
     @Test
     void registerWithNullArgs() {
         assertEquals(Status.ERROR, manager.register(null, "password").status(),
@@ -1,5 +1,8 @@
 package bg.sofia.uni.fmi.mjt.bookmarks.manager.service;
 
+import bg.sofia.uni.fmi.mjt.bookmarks.manager.entity.BatchOperation;
+import bg.sofia.uni.fmi.mjt.bookmarks.manager.entity.LinkStatus;
+import bg.sofia.uni.fmi.mjt.bookmarks.manager.entity.Response;
 import bg.sofia.uni.fmi.mjt.bookmarks.manager.entity.Status;
 import bg.sofia.uni.fmi.mjt.bookmarks.manager.exception.UrlShortenerException;
 import bg.sofia.uni.fmi.mjt.bookmarks.manager.external.HtmlParser;
@@ -17,11 +20,17 @@ import java.net.HttpURLConnection;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 class BookmarkManagerTest {
@@ -33,10 +42,10 @@ class BookmarkManagerTest {
     HtmlParser parser = Mockito.mock(HtmlParser.class);
 
     HttpClient client = Mockito.mock(HttpClient.class);
-    HttpResponse<String> responseMock = (HttpResponse<String>) Mockito.mock(HttpResponse.class);
+    LinkChecker checker = new LinkChecker(client, Runnable::run, 1, Duration.ofSeconds(1));
 
     @InjectMocks
-    BookmarkManager manager = new BookmarkManager(storage, shortener, parser, client);
+    BookmarkManager manager = new BookmarkManager(storage, shortener, parser, checker);
 
     @Test
     void createGroup() {
@@ -96,6 +105,94 @@ class BookmarkManagerTest {
                 "The provided url is invalid - it should not be added to the group.");
     }
 
+    @Test
+    void addToAsync() {
+        Document document = mock(Document.class);
+        when(document.body()).thenReturn(new Element("<body>").text("async keywords"));
+        when(document.title()).thenReturn("async");
+        when(parser.parseAsync("https://async.com/")).thenReturn(CompletableFuture.completedFuture(document));
+
+        manager.createGroup("addToAsync", CALLER);
+
+        assertEquals(
+                new Response<>(Status.OK, "https://async.com/ added to addToAsync."),
+                manager.addToAsync("addToAsync", "https://async.com/", CALLER).join(),
+                "The fetched page should be added to the group once the future completes.");
+    }
+
+    @Test
+    void addToAsyncWithFailedFetch() {
+        when(parser.parseAsync("https://failed.com/"))
+                .thenReturn(CompletableFuture.failedFuture(new IOException("Connection refused")));
+
+        manager.createGroup("addToAsyncWithFailedFetch", CALLER);
+
+        assertEquals(
+                Status.ERROR,
+                manager.addToAsync("addToAsyncWithFailedFetch", "https://failed.com/", CALLER).join().status(),
+                "A page which cannot be fetched should not be added to the group.");
+        assertEquals(
+                Status.ERROR,
+                manager.addToAsync("Absent", "https://failed.com/", CALLER).join().status(),
+                "A group with name \"Absent\" do not exist.");
+    }
+
+    @Test
+    void addToBookmarkedByAnotherUser() throws IOException {
+        Document document = mock(Document.class);
+        when(document.body()).thenReturn(new Element("<body>"));
+        when(document.title()).thenReturn("google");
+        when(parser.parse("https://google.com/")).thenReturn(document);
+
+        manager.createGroup("addToBookmarkedByAnotherUser", CALLER);
+        manager.createGroup("addToBookmarkedByAnotherUser", "anotherUser");
+
+        assertEquals(
+                Status.OK,
+                manager.addTo("addToBookmarkedByAnotherUser", "https://google.com/", CALLER).status(),
+                "The provided arguments are valid. Bookmark should be created and added to the group.");
+        assertEquals(
+                Status.OK,
+                manager.addTo("addToBookmarkedByAnotherUser", "https://google.com/", "anotherUser").status(),
+                "The provided arguments are valid. Bookmark should be added to the group of the other user.");
+
+        verify(parser, times(1)).parse("https://google.com/");
+    }
+
+    @Test
+    void addToSpelledDifferentlyByAnotherUser() throws IOException {
+        Document document = mock(Document.class);
+        when(document.body()).thenReturn(new Element("<body>").text("examples"));
+        when(document.title()).thenReturn("example");
+        when(parser.parse("https://Example.com")).thenReturn(document);
+
+        manager.createGroup("spelled", "spelledFirst");
+        manager.createGroup("spelled", "spelledSecond");
+        manager.addTo("spelled", "https://Example.com", "spelledFirst");
+        manager.addTo("spelled", "https://example.com/", "spelledSecond");
+
+        verify(parser, never()).parse("https://example.com/");
+        assertEquals(
+                """
+                spelled:\s
+                                          
+                TITLE: example
+                LINK: https://example.com/
+                TAGS: [examples, ...]
+                ------------------------------
+                """,
+                manager.list("spelled", "spelledSecond").response(),
+                "A bookmark should be listed with the url as spelled by its user.");
+        assertEquals(
+                Status.OK,
+                manager.removeFrom("spelled", "https://example.com/", "spelledSecond").status(),
+                "A bookmark should be removed by the url as spelled by its user.");
+        assertEquals(
+                Status.OK,
+                manager.removeFrom("spelled", "https://Example.com", "spelledFirst").status(),
+                "The bookmark of the first user should not be affected.");
+    }
+
     @Test
     void addToDuplicateBookmark() throws IOException {
         Document document = mock(Document.class);
@@ -400,6 +497,19 @@ class BookmarkManagerTest {
         assertEquals(expected2, manager.searchByTitle("yahoo", CALLER).response());
     }
 
+    @Test
+    void searchByQueryInvalid() {
+        assertEquals(
+                Status.ERROR,
+                manager.searchByQuery("tag1 AND (tag2", CALLER).status(),
+                "The query is malformed. Cannot perform search by query.");
+
+        assertEquals(
+                Status.ERROR,
+                manager.searchByQuery(null, CALLER).status(),
+                "The query argument is null. Cannot perform search by query.");
+    }
+
     @Test
     void searchByTitleWithNullArgs() {
         assertEquals(
@@ -488,34 +598,123 @@ class BookmarkManagerTest {
 
 
     @Test
-    void cleanUp() throws IOException, InterruptedException {
+    void cleanUp() throws IOException {
         Document document = mock(Document.class);
         when(document.body()).thenReturn(new Element("<body>"));
-        when(parser.parse("https://github.com/asdadaddte")).thenReturn(document);
-        when(client.send(Mockito.any(HttpRequest.class), ArgumentMatchers.<HttpResponse.BodyHandler<String>>any()))
-                .thenReturn(responseMock);
-        when(responseMock.statusCode()).thenReturn(HttpURLConnection.HTTP_NOT_FOUND);
+        when(document.title()).thenReturn("alive");
+        when(parser.parse("https://alive.com/")).thenReturn(document);
 
         manager.createGroup("cleanUp", CALLER);
-        manager.addTo("cleanUp", "https://github.com/asdadaddte", CALLER);
+        manager.addTo("cleanUp", "https://alive.com/", CALLER);
+
+        storage.catalog().record("https://alive.com/",
+                LinkStatus.of("https://alive.com/", HttpURLConnection.HTTP_OK), Instant.now());
+
+        assertEquals("Cleanup completed. Totally removed invalid bookmarks: 0",
+                manager.cleanup(CALLER).response(),
+                "A bookmark known to be alive should be kept.");
+    }
+
+    @Test
+    void cleanUpKnownDeadBookmarks() throws IOException, InterruptedException {
+        Document document = mock(Document.class);
+        when(document.body()).thenReturn(new Element("<body>"));
+        when(parser.parse("https://dead.com/")).thenReturn(document);
+
+        manager.createGroup("cleanUpKnownDeadBookmarks", CALLER);
+        manager.addTo("cleanUpKnownDeadBookmarks", "https://dead.com/", CALLER);
+
+        storage.catalog().record("https://dead.com/",
+                LinkStatus.of("https://dead.com/", HttpURLConnection.HTTP_NOT_FOUND), Instant.now());
 
         assertEquals("Cleanup completed. Totally removed invalid bookmarks: 1",
                 manager.cleanup(CALLER).response(),
-                "Cleanup should be performed successfully.");
+                "A bookmark already known to be dead should be removed.");
+        verify(client, never()).send(Mockito.any(HttpRequest.class), ArgumentMatchers.any());
     }
 
     @Test
-    void cleanUpWithRequestFailure() throws IOException, InterruptedException {
+    void batch() throws IOException {
         Document document = mock(Document.class);
         when(document.body()).thenReturn(new Element("<body>"));
-        when(parser.parse("https://github.com/asdadaddte")).thenReturn(document);
-        when(client.send(Mockito.any(HttpRequest.class), ArgumentMatchers.<HttpResponse.BodyHandler<String>>any()))
-                .thenThrow(IOException.class);
-        when(responseMock.statusCode()).thenReturn(HttpURLConnection.HTTP_NOT_FOUND);
+        when(parser.parse("https://google.com/")).thenReturn(document);
+        when(parser.parse("www.asd.com")).thenThrow(new IOException());
 
-        manager.createGroup("cleanUp", CALLER);
-        manager.addTo("cleanUp", "https://github.com/asdadaddte", CALLER);
+        Response<String> response = manager.batch(List.of(
+                BatchOperation.newGroup("batch"),
+                BatchOperation.addTo("batch", "https://google.com/", false),
+                BatchOperation.addTo("batch", "www.asd.com", false),
+                BatchOperation.invalid(),
+                BatchOperation.removeFrom("batch", "https://google.com/")
+        ), CALLER);
+
+        assertEquals(Status.ERROR, response.status(), "Some of the operations fail.");
+        assertEquals("OK OK ERROR ERROR OK" + System.lineSeparator() +
+                     "#3 The provided bookmark's url is invalid." + System.lineSeparator() +
+                     "#4 Invalid batch command.",
+                response.response(),
+                "The operations should be applied in order and only the failed ones should be reported.");
+    }
 
-        assertEquals(Status.ERROR, manager.cleanup(CALLER).status(), "Exception is thrown. Cleanup error.");
+    @Test
+    void batchAddToInvalidGroupIsNotFetched() throws IOException {
+        Response<String> response = manager.batchAsync(List.of(
+                BatchOperation.addTo("batchMissingGroup", "https://missing-group.com/", false),
+                BatchOperation.newGroup("batchMissingGroup")
+        ), CALLER).join();
+
+        assertEquals("ERROR OK" + System.lineSeparator() +
+                     "#1 A group with name batchMissingGroup does not exist.",
+                response.response(),
+                "A group created after the operation should not make it valid.");
+        verify(parser, never()).parse("https://missing-group.com/");
+    }
+
+    @Test
+    void batchAllSucceed() {
+        Response<String> response = manager.batch(List.of(
+                BatchOperation.newGroup("batchAllSucceed1"),
+                BatchOperation.newGroup("batchAllSucceed2")
+        ), CALLER);
+
+        assertEquals(Status.OK, response.status(), "All the operations are valid.");
+        assertEquals("OK OK", response.response(), "Only the statuses should be returned.");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void cleanUpChecksUnknownAndFailedBookmarks() throws IOException, InterruptedException {
+        Document document = mock(Document.class);
+        when(document.body()).thenReturn(new Element("<body>"));
+        when(document.title()).thenReturn("unchecked", "unreachable");
+        when(parser.parse(ArgumentMatchers.anyString())).thenReturn(document);
+
+        HttpResponse<Void> notFound = mock(HttpResponse.class);
+        when(notFound.statusCode()).thenReturn(HttpURLConnection.HTTP_NOT_FOUND);
+        when(client.send(Mockito.any(HttpRequest.class), ArgumentMatchers.<HttpResponse.BodyHandler<Void>>any()))
+                .thenAnswer(invocation -> {
+                    if (invocation.<HttpRequest>getArgument(0).uri().getHost().equals("unreachable.com")) {
+                        throw new IOException("Connection refused");
+                    }
+
+                    return notFound;
+                });
+
+        manager.createGroup("cleanUpChecksUnknownAndFailedBookmarks", CALLER);
+        manager.addTo("cleanUpChecksUnknownAndFailedBookmarks", "https://unchecked.com/", CALLER);
+        manager.addTo("cleanUpChecksUnknownAndFailedBookmarks", "https://unreachable.com/", CALLER);
+
+        storage.catalog().record("https://unreachable.com/",
+                LinkStatus.failed("https://unreachable.com/", "Timed out."), Instant.now());
+
+        Response<String> response = manager.cleanup(CALLER);
+
+        assertEquals(Status.ERROR, response.status(), "A bookmark which cannot be checked should fail the cleanup.");
+        assertEquals("Cleanup completed. Totally removed invalid bookmarks: 1" + System.lineSeparator() +
+                     "Could not check bookmarks: 1" + System.lineSeparator() +
+                     "https://unreachable.com/ Connection refused", response.response(),
+                "Bookmarks without a successful background check should be checked by the cleanup.");
+        assertEquals("Connection refused", storage.catalog().status("https://unreachable.com/").orElseThrow().error(),
+                "The status found by the cleanup should be recorded.");
     }
 }
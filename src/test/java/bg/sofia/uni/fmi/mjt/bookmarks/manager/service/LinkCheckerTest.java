@@ -0,0 +1,144 @@
+package bg.sofia.uni.fmi.mjt.bookmarks.manager.service;
+
+import bg.sofia.uni.fmi.mjt.bookmarks.manager.entity.LinkStatus;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+class LinkCheckerTest {
+
+    HttpClient client = Mockito.mock(HttpClient.class);
+
+    @SuppressWarnings("unchecked")
+    private HttpResponse<Void> responseWith(int statusCode) {
+        HttpResponse<Void> response = Mockito.mock(HttpResponse.class);
+        when(response.statusCode()).thenReturn(statusCode);
+
+        return response;
+    }
+
+    @Test
+    void checkFallsBackToGetOnHeadError() throws IOException, InterruptedException {
+        HttpResponse<Void> notAllowed = responseWith(HttpURLConnection.HTTP_BAD_METHOD);
+        HttpResponse<Void> ok = responseWith(HttpURLConnection.HTTP_OK);
+
+        when(client.send(Mockito.any(HttpRequest.class), ArgumentMatchers.<HttpResponse.BodyHandler<Void>>any()))
+                .thenAnswer(invocation -> invocation.<HttpRequest>getArgument(0).method().equals("HEAD") ?
+                        notAllowed : ok);
+
+        LinkChecker checker = new LinkChecker(client, Runnable::run, 2, Duration.ofSeconds(1));
+        LinkStatus status = checker.check("https://head.com/");
+
+        assertEquals(HttpURLConnection.HTTP_OK, status.statusCode(), "The GET status should be the final one.");
+        assertFalse(status.isBroken(), "A page served by GET is not broken.");
+    }
+
+    @Test
+    void checkCollectsErrorsPerUrl() throws IOException, InterruptedException {
+        HttpResponse<Void> notFound = responseWith(HttpURLConnection.HTTP_NOT_FOUND);
+        HttpResponse<Void> ok = responseWith(HttpURLConnection.HTTP_OK);
+
+        when(client.send(Mockito.any(HttpRequest.class), ArgumentMatchers.<HttpResponse.BodyHandler<Void>>any()))
+                .thenAnswer(invocation -> switch (invocation.<HttpRequest>getArgument(0).uri().getHost()) {
+                    case "down.com" -> throw new IOException("Connection refused");
+                    case "gone.com" -> notFound;
+                    default -> ok;
+                });
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        LinkChecker checker = new LinkChecker(client, executor, 2, Duration.ofSeconds(1));
+
+        List<String> urls = List.of("https://down.com/", "https://gone.com/a", "https://gone.com/b",
+                "https://up.com/a", "https://up.com/b", "https://up.com/c");
+        List<LinkStatus> statuses = checker.check(urls);
+        executor.shutdown();
+
+        assertEquals(urls, statuses.stream().map(LinkStatus::url).toList(),
+                "Every url should be checked and reported in order.");
+        assertTrue(statuses.get(0).isFailed(), "A url which cannot be reached should be reported as failed.");
+        assertTrue(statuses.get(1).isBroken() && statuses.get(2).isBroken(), "Missing pages should be broken.");
+        assertTrue(statuses.subList(3, 6).stream().noneMatch(s -> s.isFailed() || s.isBroken()),
+                "A failed url should not stop the checks of the others.");
+    }
+
+    @Test
+    void checkStopsWaitingWhenInterrupted() throws IOException, InterruptedException {
+        CountDownLatch sent = new CountDownLatch(1);
+        CountDownLatch released = new CountDownLatch(1);
+        HttpResponse<Void> ok = responseWith(HttpURLConnection.HTTP_OK);
+
+        when(client.send(Mockito.any(HttpRequest.class), ArgumentMatchers.<HttpResponse.BodyHandler<Void>>any()))
+                .thenAnswer(invocation -> {
+                    sent.countDown();
+                    released.await(5, TimeUnit.SECONDS);
+                    return ok;
+                });
+
+        ExecutorService executor = Executors.newFixedThreadPool(1);
+        LinkChecker checker = new LinkChecker(client, executor, 1, Duration.ofSeconds(1));
+
+        AtomicReference<List<LinkStatus>> statuses = new AtomicReference<>();
+        List<String> urls = List.of("https://slow.com/a", "https://slow.com/b");
+        Thread caller = new Thread(() -> statuses.set(checker.check(urls)));
+        caller.start();
+
+        assertTrue(sent.await(5, TimeUnit.SECONDS), "The first url should be sent.");
+        caller.interrupt();
+        caller.join(TimeUnit.SECONDS.toMillis(1));
+
+        assertFalse(caller.isAlive(), "An interrupted check should stop waiting for the checks in flight.");
+        assertTrue(statuses.get().stream().allMatch(LinkStatus::isFailed),
+                "The urls not checked before the interrupt should be reported as failed.");
+
+        released.countDown();
+        executor.shutdown();
+    }
+
+    @Test
+    void checkRunsOnItsOwnPoolOnceStarted() throws IOException, InterruptedException {
+        HttpResponse<Void> ok = responseWith(HttpURLConnection.HTTP_OK);
+        Set<String> threads = ConcurrentHashMap.newKeySet();
+
+        when(client.send(Mockito.any(HttpRequest.class), ArgumentMatchers.<HttpResponse.BodyHandler<Void>>any()))
+                .thenAnswer(invocation -> {
+                    threads.add(Thread.currentThread().getName());
+                    return ok;
+                });
+
+        LinkChecker checker = new LinkChecker(client);
+        List<String> urls = List.of("https://pool.com/a", "https://pool.com/b");
+
+        checker.start(2, 1, Duration.ofSeconds(1));
+        List<LinkStatus> statuses = checker.check(urls);
+        checker.stop();
+
+        assertEquals(Set.of("link-check"), threads, "A started checker should check the urls on its own pool.");
+        assertTrue(statuses.stream().noneMatch(LinkStatus::isFailed), "Every url should be checked.");
+
+        threads.clear();
+        checker.check(urls);
+
+        assertEquals(Set.of(Thread.currentThread().getName()), threads,
+                "A stopped checker should check the urls on the calling thread.");
+    }
+}
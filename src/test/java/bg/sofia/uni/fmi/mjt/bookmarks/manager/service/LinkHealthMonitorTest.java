@@ -0,0 +1,210 @@
+package bg.sofia.uni.fmi.mjt.bookmarks.manager.service;
+
+import bg.sofia.uni.fmi.mjt.bookmarks.manager.entity.Bookmark;
+import bg.sofia.uni.fmi.mjt.bookmarks.manager.repository.BookmarkStorage;
+import bg.sofia.uni.fmi.mjt.bookmarks.manager.repository.Bookmarks;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+class LinkHealthMonitorTest {
+
+    BookmarkStorage storage = new BookmarkStorage();
+    HttpClient client = Mockito.mock(HttpClient.class);
+    LinkChecker checker = new LinkChecker(client, Runnable::run, 1, Duration.ofSeconds(1));
+
+    @TempDir
+    Path dir;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() throws IOException, InterruptedException {
+        Bookmarks bookmarks = storage.hook("user");
+        bookmarks.newGroup("group");
+
+        for (String site : List.of("a", "b", "c")) {
+            URL url = new URL("https://" + site + ".com/");
+            bookmarks.addBookmark("group", new Bookmark(site, url, List.of()));
+        }
+
+        HttpResponse<Void> notFound = Mockito.mock(HttpResponse.class);
+        when(notFound.statusCode()).thenReturn(HttpURLConnection.HTTP_NOT_FOUND);
+        HttpResponse<Void> ok = Mockito.mock(HttpResponse.class);
+        when(ok.statusCode()).thenReturn(HttpURLConnection.HTTP_OK);
+
+        when(client.send(Mockito.any(HttpRequest.class), ArgumentMatchers.<HttpResponse.BodyHandler<Void>>any()))
+                .thenAnswer(invocation -> invocation.<HttpRequest>getArgument(0).uri().getHost().equals("b.com") ?
+                        notFound : ok);
+    }
+
+    @Test
+    void checkNextBatchWalksTheCatalogInBatches() {
+        LinkHealthMonitor monitor = new LinkHealthMonitor(storage.catalog(), checker, dir.resolve("health.jsonl"));
+        monitor.start(Long.MAX_VALUE, 2);
+        monitor.stop();
+
+        assertEquals(2, monitor.checkNextBatch(), "The first batch should be full.");
+        assertEquals("https://b.com/", monitor.cursor(), "The cursor should follow the last validated url.");
+        assertTrue(storage.catalog().status("https://b.com/").orElseThrow().isBroken(),
+                "A missing page should be recorded as broken.");
+        assertTrue(storage.catalog().status("https://c.com/").isEmpty(), "The next batch is not validated yet.");
+
+        assertEquals(1, monitor.checkNextBatch(), "The second batch should hold the rest.");
+        assertFalse(storage.catalog().status("https://c.com/").orElseThrow().isBroken(),
+                "A served page should not be broken.");
+
+        assertEquals(2, monitor.checkNextBatch(), "The walk should start over after the last url.");
+    }
+
+    @Test
+    void restartResumesFromTheCheckpoint() {
+        Path checkpoint = dir.resolve("health.jsonl");
+
+        LinkHealthMonitor first = new LinkHealthMonitor(storage.catalog(), checker, checkpoint);
+        first.start(Long.MAX_VALUE, 2);
+        first.stop();
+        first.checkNextBatch();
+
+        assertTrue(Files.exists(checkpoint), "The checkpoint should be written after a batch.");
+
+        BookmarkStorage restarted = new BookmarkStorage();
+        Bookmarks bookmarks = restarted.hook("user");
+        bookmarks.newGroup("group");
+        storage.hook("user").getGroup("group").forEach(bookmark -> bookmarks.addBookmark("group", bookmark));
+
+        LinkHealthMonitor second = new LinkHealthMonitor(restarted.catalog(), checker, checkpoint);
+        second.start(Long.MAX_VALUE, 2);
+        second.stop();
+
+        assertEquals("https://b.com/", second.cursor(), "The cursor should be restored.");
+        assertTrue(restarted.catalog().status("https://b.com/").orElseThrow().isBroken(),
+                "The recorded health should be restored.");
+        assertEquals(1, second.checkNextBatch(), "The walk should resume after the restored cursor.");
+    }
+
+    @Test
+    void restoreIntoAnEmptyCatalogKeepsTheCheckpoint() {
+        Path checkpoint = dir.resolve("health.jsonl");
+
+        LinkHealthMonitor first = new LinkHealthMonitor(storage.catalog(), checker, checkpoint);
+        first.start(Long.MAX_VALUE, 2);
+        first.stop();
+        first.checkNextBatch();
+
+        LinkHealthMonitor empty = new LinkHealthMonitor(new BookmarkStorage().catalog(), checker, checkpoint);
+        empty.start(Long.MAX_VALUE, 2);
+        empty.stop();
+
+        assertEquals(0, empty.checkNextBatch(), "Nothing should be validated.");
+
+        BookmarkStorage restarted = new BookmarkStorage();
+        Bookmarks bookmarks = restarted.hook("user");
+        bookmarks.newGroup("group");
+        storage.hook("user").getGroup("group").forEach(bookmark -> bookmarks.addBookmark("group", bookmark));
+
+        LinkHealthMonitor second = new LinkHealthMonitor(restarted.catalog(), checker, checkpoint);
+        second.start(Long.MAX_VALUE, 2);
+        second.stop();
+
+        assertTrue(restarted.catalog().status("https://b.com/").orElseThrow().isBroken(),
+                "The health of the urls missing from an empty catalog should survive its compaction.");
+    }
+
+    @Test
+    void checkpointAppendsOnlyTheBatch() throws IOException {
+        Path checkpoint = dir.resolve("health.jsonl");
+
+        LinkHealthMonitor first = new LinkHealthMonitor(storage.catalog(), checker, checkpoint);
+        first.start(Long.MAX_VALUE, 1);
+        first.stop();
+        first.checkNextBatch();
+        first.checkNextBatch();
+
+        List<String> lines = Files.readAllLines(checkpoint);
+
+        assertEquals(2, lines.size(), "Every batch should append a single line.");
+        assertTrue(lines.get(1).contains("https://b.com/") && !lines.get(1).contains("https://a.com/"),
+                "A line should hold only the health of its own batch.");
+
+        Files.writeString(checkpoint, "{\"cursor\":\"https://c", StandardOpenOption.APPEND);
+
+        BookmarkStorage restarted = new BookmarkStorage();
+        Bookmarks bookmarks = restarted.hook("user");
+        bookmarks.newGroup("group");
+        storage.hook("user").getGroup("group").forEach(bookmark -> bookmarks.addBookmark("group", bookmark));
+
+        LinkHealthMonitor second = new LinkHealthMonitor(restarted.catalog(), checker, checkpoint);
+        second.start(Long.MAX_VALUE, 1);
+        second.stop();
+
+        assertEquals("https://b.com/", second.cursor(), "A line cut short by a crash should be ignored.");
+        assertTrue(restarted.catalog().status("https://a.com/").isPresent(),
+                "The health of every appended batch should be restored.");
+        assertEquals(1, Files.readAllLines(checkpoint).size(), "The restored checkpoint should be compacted.");
+    }
+
+    @Test
+    void checkNextBatchWithEmptyCatalog() {
+        LinkHealthMonitor monitor = new LinkHealthMonitor(new BookmarkStorage().catalog(), checker,
+                dir.resolve("health.jsonl"));
+
+        assertEquals(0, monitor.checkNextBatch(), "Nothing should be validated.");
+        assertNull(monitor.cursor(), "The cursor should not move.");
+    }
+
+    @Test
+    void stopDoesNotWaitForTheBatchInProgress() throws IOException, InterruptedException {
+        CountDownLatch sent = new CountDownLatch(1);
+        CountDownLatch released = new CountDownLatch(1);
+        HttpClient blocking = Mockito.mock(HttpClient.class);
+        HttpResponse<?> ok = Mockito.mock(HttpResponse.class);
+        when(ok.statusCode()).thenReturn(HttpURLConnection.HTTP_OK);
+
+        when(blocking.send(Mockito.any(HttpRequest.class), ArgumentMatchers.<HttpResponse.BodyHandler<Void>>any()))
+                .thenAnswer(invocation -> {
+                    sent.countDown();
+                    released.await(5, TimeUnit.SECONDS);
+                    return ok;
+                });
+
+        LinkHealthMonitor monitor = new LinkHealthMonitor(storage.catalog(),
+                new LinkChecker(blocking, Runnable::run, 1, Duration.ofSeconds(1)), dir.resolve("health.jsonl"));
+        Thread batch = new Thread(monitor::checkNextBatch);
+        batch.start();
+
+        try {
+            assertTrue(sent.await(5, TimeUnit.SECONDS), "The batch should be in progress.");
+
+            assertTimeoutPreemptively(Duration.ofSeconds(1), () -> {
+                monitor.stop();
+                assertNull(monitor.cursor(), "The batch in progress should not have moved the cursor yet.");
+            }, "Stopping the monitor should not wait for the batch in progress.");
+        } finally {
+            released.countDown();
+            batch.join();
+        }
+    }
+}
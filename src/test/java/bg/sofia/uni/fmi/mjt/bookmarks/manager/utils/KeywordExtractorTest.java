@@ -0,0 +1,55 @@
+package bg.sofia.uni.fmi.mjt.bookmarks.manager.utils;
+
+import bg.sofia.uni.fmi.mjt.bookmarks.manager.exception.StopWordsException;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Element;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringReader;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class KeywordExtractorTest {
+
+    StopWords stopWords = new StopWords();
+
+    @BeforeEach
+    void setUp() throws StopWordsException {
+        stopWords.load(new StringReader("about\nwhich"));
+    }
+
+    @Test
+    void keywordsOrderedByCountThenFirstOccurrence() {
+        Element body = Jsoup.parse("<p>Java, kotlin; JAVA - scala kotlin java which About</p>").body();
+
+        assertEquals(List.of("java", "kotlin", "scala"), KeywordExtractor.keywords(body, stopWords, 3, 20),
+                "The keywords should be lower-cased, ordered by count and then by first occurrence.");
+    }
+
+    @Test
+    void keywordsAreLimited() {
+        Element body = Jsoup.parse("<p>first second second third third third</p>").body();
+
+        assertEquals(List.of("third", "second"), KeywordExtractor.keywords(body, stopWords, 3, 2),
+                "Only the most frequent keywords should be kept.");
+    }
+
+    @Test
+    void keywordsJoinInlineElementsAndSplitBlocks() {
+        Element body = Jsoup.parse("<div>hello<b>world</b></div><div>split</div><div>here</div>").body();
+
+        assertEquals(List.of("helloworld", "split", "here"), KeywordExtractor.keywords(body, stopWords, 3, 20),
+                "Inline elements should not split a word, while block elements should.");
+    }
+
+    @Test
+    void keywordsOfEmptyPage() {
+        assertTrue(KeywordExtractor.keywords(Jsoup.parse("<p>a an the</p>").body(), stopWords, 3, 20).isEmpty(),
+                "Short words should not be keywords.");
+        assertTrue(KeywordExtractor.keywords(null, stopWords, 3, 20).isEmpty(),
+                "A missing body has no keywords.");
+    }
+}
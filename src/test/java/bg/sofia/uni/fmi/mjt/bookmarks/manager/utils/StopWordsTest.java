@@ -2,10 +2,18 @@ package bg.sofia.uni.fmi.mjt.bookmarks.manager.utils;
 
 import bg.sofia.uni.fmi.mjt.bookmarks.manager.exception.StopWordsException;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
+import java.io.IOException;
 import java.io.Reader;
 import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
 
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -41,4 +49,49 @@ class StopWordsTest {
 
         assertThrows(StopWordsException.class, () -> stopWords.load("invalid"), "The provided path is not valid. Exception should be thrown");
     }
-}
\ No newline at end of file
+
+    @Test
+    void isStopWordIgnoresCase() throws StopWordsException {
+        StopWords stopWords = new StopWords();
+        stopWords.load(new StringReader("the\nи\n"));
+
+        assertTrue(stopWords.isStopWord("The"), "The lookup should ignore the case of the word.");
+        assertTrue(stopWords.isStopWord(new StringBuilder("И")), "The lookup should ignore the case of cyrillic words.");
+        assertFalse(stopWords.isStopWord("then"), "A word which is not loaded is not a stopword.");
+    }
+
+    @Test
+    void isStopWordLowerCasesLikeTheLoadedWords() throws StopWordsException {
+        StopWords stopWords = new StopWords();
+        stopWords.load(new StringReader("\u0130stanbul\n"));
+
+        assertTrue(stopWords.isStopWord("\u0130STANBUL"),
+                "A word whose lower case differs in length as a string should still be found.");
+    }
+
+    @Test
+    void defaultsAreLoadedOnce() {
+        StopWords defaults = StopWords.defaults();
+
+        assertSame(defaults, StopWords.defaults(), "The default stopwords should be shared.");
+        assertTrue(defaults.isStopWord("about"), "The english stopwords should be loaded.");
+    }
+
+    @Test
+    void reloadIfModified(@TempDir Path dir) throws StopWordsException, IOException {
+        Path file = dir.resolve("stopwords.txt");
+        Files.writeString(file, "first");
+
+        StopWords stopWords = new StopWords();
+        stopWords.load(file.toString());
+
+        assertFalse(stopWords.reloadIfModified(), "An unchanged file should not be loaded again.");
+
+        Files.writeString(file, "second");
+        Files.setLastModifiedTime(file, FileTime.from(Instant.now().plusSeconds(60)));
+
+        assertTrue(stopWords.reloadIfModified(), "A changed file should be loaded again.");
+        assertTrue(stopWords.isStopWord("second"), "The new words should be loaded.");
+        assertFalse(stopWords.isStopWord("first"), "The removed words should not be stopwords anymore.");
+    }
+}
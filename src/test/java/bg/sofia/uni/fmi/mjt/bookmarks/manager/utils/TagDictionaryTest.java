@@ -0,0 +1,59 @@
+package bg.sofia.uni.fmi.mjt.bookmarks.manager.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class TagDictionaryTest {
+
+    @Test
+    void idIsStable() {
+        int id = TagDictionary.id("idIsStable");
+
+        assertEquals(id, TagDictionary.id(new String("idIsStable")), "The same tag should always have the same id.");
+        assertEquals("idIsStable", TagDictionary.tag(id), "The tag should be looked up by its id.");
+        assertSame(TagDictionary.tag(id), TagDictionary.tag(TagDictionary.id("idIsStable")),
+                "A tag should be stored only once.");
+    }
+
+    @Test
+    void tagWithUnknownId() {
+        assertThrows(IllegalArgumentException.class, () -> TagDictionary.tag(-1), "There is no tag with a negative id.");
+        assertThrows(IllegalArgumentException.class, () -> TagDictionary.tag(Integer.MAX_VALUE),
+                "There is no tag with an id which has not been given.");
+    }
+
+    @Test
+    void idFromManyThreads() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        Set<Integer> ids = ConcurrentHashMap.newKeySet();
+
+        try {
+            List<Future<?>> futures = IntStream.range(0, 8)
+                    .mapToObj(i -> executor.submit(() -> IntStream.range(0, 5000)
+                            .forEach(tag -> ids.add(TagDictionary.id("idFromManyThreads" + tag)))))
+                    .<Future<?>>map(future -> future)
+                    .toList();
+
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(5000, ids.size(), "Every distinct tag should get exactly one id.");
+        ids.forEach(id -> assertEquals(id, TagDictionary.id(TagDictionary.tag(id)),
+                "Every id should map back to its tag."));
+    }
+}
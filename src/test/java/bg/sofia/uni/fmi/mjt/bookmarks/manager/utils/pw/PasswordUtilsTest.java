@@ -2,6 +2,11 @@ package bg.sofia.uni.fmi.mjt.bookmarks.manager.utils.pw;
 
 import org.junit.jupiter.api.Test;
 
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import java.math.BigInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -43,6 +48,21 @@ class PasswordUtilsTest {
         assertTrue(PasswordUtils.verify(tokens4[1], tokens4[0], pw4), message);
     }
 
+    @Test
+    void verifyHashWithLeadingZeroSalt() throws Exception {
+        String password = "R3@llY$tr0ng";
+        byte[] salt = new byte[16];
+        salt[15] = 1;
+
+        PBEKeySpec spec = new PBEKeySpec(password.toCharArray(), salt, 1000, 512);
+        byte[] hash = SecretKeyFactory.getInstance("PBKDF2WithHmacSHA1").generateSecret(spec).getEncoded();
+
+        assertTrue(PasswordUtils.verify(new BigInteger(1, hash).toString(16), "1", password),
+                "A salt stored without its leading zero bytes should still verify.");
+        assertEquals(32, PasswordUtils.generateHash(password).split(":")[0].length(),
+                "The salt should be stored with a fixed width.");
+    }
+
     @Test
     void verifyHashInvalid() throws Exception {
         String message = "Invalid hash data is passed to the verify method.";
@@ -0,0 +1,64 @@
+package bg.sofia.uni.fmi.mjt.bookmarks.manager.utils.query;
+
+import bg.sofia.uni.fmi.mjt.bookmarks.manager.exception.TagQueryException;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class TagQueryParserTest {
+
+    @Test
+    void parseSingleTag() throws TagQueryException {
+        assertEquals(new TagQuery.Tag("java"), TagQueryParser.parse("java"), "A single tag should be parsed.");
+    }
+
+    @Test
+    void parsePrecedence() throws TagQueryException {
+        TagQuery expected = new TagQuery.Or(List.of(
+                new TagQuery.And(List.of(new TagQuery.Tag("java"), new TagQuery.Tag("nio"))),
+                new TagQuery.Tag("netty")
+        ));
+
+        assertEquals(expected, TagQueryParser.parse("java AND nio OR netty"), "AND should bind tighter than OR.");
+    }
+
+    @Test
+    void parseGroupingAndImplicitAnd() throws TagQueryException {
+        TagQuery expected = new TagQuery.And(List.of(
+                new TagQuery.Tag("java"),
+                new TagQuery.Or(List.of(new TagQuery.Tag("nio"), new TagQuery.Tag("netty"))),
+                new TagQuery.Not(new TagQuery.Tag("spring"))
+        ));
+
+        assertEquals(expected, TagQueryParser.parse("\"java AND (nio or netty) NOT spring\""),
+                "Parentheses should group, NOT after an operand should be joined by AND and quotes ignored.");
+    }
+
+    @Test
+    void parseMalformed() {
+        assertThrows(TagQueryException.class, () -> TagQueryParser.parse(null), "A null query is invalid.");
+        assertThrows(TagQueryException.class, () -> TagQueryParser.parse(" \"\" "), "An empty query is invalid.");
+        assertThrows(TagQueryException.class, () -> TagQueryParser.parse("java AND"),
+                "An operator without an operand is invalid.");
+        assertThrows(TagQueryException.class, () -> TagQueryParser.parse("(java OR nio"),
+                "An unclosed parenthesis is invalid.");
+        assertThrows(TagQueryException.class, () -> TagQueryParser.parse("java)"),
+                "An unopened parenthesis is invalid.");
+    }
+
+    @Test
+    void parseDeeplyNested() throws TagQueryException {
+        assertThrows(TagQueryException.class, () -> TagQueryParser.parse("(".repeat(2000) + "java" + ")".repeat(2000)),
+                "A query with thousands of nested parentheses should be rejected instead of overflowing the stack.");
+        assertThrows(TagQueryException.class, () -> TagQueryParser.parse("(".repeat(40) + "java" + ")".repeat(40)),
+                "A query nested deeper than the limit should be rejected.");
+        assertThrows(TagQueryException.class, () -> TagQueryParser.parse("NOT ".repeat(40) + "java"),
+                "A chain of NOT deeper than the limit should be rejected.");
+
+        assertEquals(new TagQuery.Tag("java"), TagQueryParser.parse("(".repeat(10) + "java" + ")".repeat(10)),
+                "A query nested within the limit should be parsed.");
+    }
+}